@@ -0,0 +1,213 @@
+package com.pvparena.benchmarks;
+
+import com.pvparena.managers.ConfigSnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Just enough of a Bukkit server to build items and inventories without one.
+ * Item meta keeps its properties in a map and inventories are plain arrays;
+ * every other call returns a default value.
+ */
+public final class BukkitStandIns {
+
+    public static final Logger LOGGER = Logger.getLogger("PVPArenaBenchmarks");
+
+    // Returned by stand-in methods with a primitive number result
+    private static final Map<Class<?>, Object> DEFAULT_NUMBERS = Map.of(
+            byte.class, (byte) 0,
+            short.class, (short) 0,
+            int.class, 0,
+            long.class, 0L,
+            float.class, 0f,
+            double.class, 0d);
+
+    private BukkitStandIns() {
+    }
+
+    /**
+     * Install the stand-in server, once per JVM
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        ItemFactory itemFactory = proxy(ItemFactory.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getItemMeta":
+                    return newItemMeta(new HashMap<>());
+                case "isApplicable":
+                    return true;
+                case "asMetaFor":
+                    return args[0];
+                case "updateMaterial":
+                    return args[1];
+                case "equals":
+                    return Objects.equals(args[0], args[1]);
+                default:
+                    return null;
+            }
+        });
+
+        Bukkit.setServer(proxy(Server.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return LOGGER;
+                case "getName":
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "stand-in";
+                case "getItemFactory":
+                    return itemFactory;
+                case "createInventory":
+                    return newInventory((InventoryHolder) args[0], (Integer) args[1]);
+                case "getOnlinePlayers":
+                    return Collections.emptyList();
+                case "isPrimaryThread":
+                    return true;
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Compile the default config.yml shipped in the plugin jar
+     */
+    public static ConfigSnapshot loadDefaultConfig() {
+        install();
+        InputStream stream = ConfigSnapshot.class.getResourceAsStream("/config.yml");
+        if (stream == null) {
+            throw new IllegalStateException("config.yml not found on the classpath");
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return new ConfigSnapshot(YamlConfiguration.loadConfiguration(reader), LOGGER);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read config.yml", e);
+        }
+    }
+
+    private static ItemMeta newItemMeta(Map<String, Object> properties) {
+        return proxy(ItemMeta.class, (method, args) -> {
+            String name = method.getName();
+            int arity = args != null ? args.length : 0;
+            if (name.equals("clone")) {
+                return newItemMeta(new HashMap<>(properties));
+            }
+            if (name.startsWith("set") && arity == 1) {
+                properties.put(name.substring(3), args[0]);
+                return null;
+            }
+            if (name.startsWith("get") && arity == 0 && properties.containsKey(name.substring(3))) {
+                return properties.get(name.substring(3));
+            }
+            if (name.startsWith("has") && arity == 0) {
+                return properties.containsKey(name.substring(3));
+            }
+            return defaultValue(method);
+        }, properties);
+    }
+
+    private static Inventory newInventory(InventoryHolder holder, int size) {
+        ItemStack[] contents = new ItemStack[size];
+        return proxy(Inventory.class, (method, args) -> {
+            switch (method.getName()) {
+                case "setItem":
+                    // A server copies every stack placed in an inventory
+                    contents[(Integer) args[0]] = args[1] != null ? ((ItemStack) args[1]).clone() : null;
+                    return null;
+                case "getItem":
+                    return contents[(Integer) args[0]];
+                case "getContents":
+                    return contents.clone();
+                case "getSize":
+                    return size;
+                case "getHolder":
+                    return holder;
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return proxy(type, handler, new Object());
+    }
+
+    /**
+     * @param identity Two proxies are equal when their identities are equal
+     */
+    private static <T> T proxy(Class<T> type, Handler handler, Object identity) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StandInHandler(type, handler, identity)));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == char.class) {
+            return '\0';
+        }
+        return DEFAULT_NUMBERS.get(returnType);
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static class StandInHandler implements InvocationHandler {
+        private final Class<?> type;
+        private final Handler handler;
+        private final Object identity;
+
+        StandInHandler(Class<?> type, Handler handler, Object identity) {
+            this.type = type;
+            this.handler = handler;
+            this.identity = identity;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                                && Proxy.getInvocationHandler(args[0]) instanceof StandInHandler
+                                && identity.equals(((StandInHandler) Proxy.getInvocationHandler(args[0])).identity);
+                    case "hashCode":
+                        return identity.hashCode();
+                    default:
+                        return type.getSimpleName() + " stand-in";
+                }
+            }
+            Object result = handler.invoke(method, args);
+            return result != null ? result : defaultValue(method);
+        }
+    }
+}
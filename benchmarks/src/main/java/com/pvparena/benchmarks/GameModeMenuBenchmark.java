@@ -0,0 +1,67 @@
+package com.pvparena.benchmarks;
+
+import com.pvparena.gui.GameModeGUI;
+import com.pvparena.gui.GameModeMenu;
+import com.pvparena.managers.ConfigSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the game mode menu, through the menu builder GameModeGUI offers
+ * for use without a running plugin. Thread scope gives every benchmark thread
+ * its own builder, as builders are single-threaded
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameModeMenuBenchmark {
+
+    private ConfigSnapshot snapshot;
+    private GameModeGUI.MenuBuilder builder;
+    private int queueSize;
+
+    @Setup(Level.Trial)
+    public void buildTemplate() {
+        snapshot = BukkitStandIns.loadDefaultConfig();
+        builder = GameModeGUI.createMenuBuilder(snapshot, BukkitStandIns.LOGGER);
+    }
+
+    /**
+     * Rebuilding the icons, done once per config reload
+     */
+    @Benchmark
+    public GameModeGUI.MenuBuilder compileTemplate() {
+        return GameModeGUI.createMenuBuilder(snapshot, BukkitStandIns.LOGGER);
+    }
+
+    /**
+     * Opening the menu while no queue changed, every icon is reused
+     */
+    @Benchmark
+    public GameModeMenu openUnchangedQueues() {
+        return builder.build(mode -> 3, true);
+    }
+
+    /**
+     * Opening the menu after every queue changed, every icon is rendered again
+     */
+    @Benchmark
+    public GameModeMenu openChangedQueues() {
+        int size = ++queueSize;
+        return builder.build(mode -> size, true);
+    }
+}
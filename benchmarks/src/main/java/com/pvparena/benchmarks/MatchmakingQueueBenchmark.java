@@ -0,0 +1,131 @@
+package com.pvparena.benchmarks;
+
+import com.pvparena.managers.MatchmakingQueue;
+import com.pvparena.models.QueueEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Joining, leaving and matching on the per game mode queues. The queues are
+ * locked the way {@code QueueManager} locks them: one monitor per game mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakingQueueBenchmark {
+
+    private static final int GAME_MODES = 4;
+    private static final int RATING_SPREAD = 2000;
+
+    @Param({"100", "1000", "10000"})
+    private int queuedPerMode;
+
+    @Param({"1", "2"})
+    private int teamSize;
+
+    @Param({"100"})
+    private int window;
+
+    private MatchmakingQueue[] queues;
+
+    @Setup(Level.Trial)
+    public void fillQueues() {
+        SplittableRandom random = new SplittableRandom(42);
+        queues = new MatchmakingQueue[GAME_MODES];
+        for (int mode = 0; mode < GAME_MODES; mode++) {
+            queues[mode] = new MatchmakingQueue();
+            for (int i = 0; i < queuedPerMode; i++) {
+                queues[mode].add(newEntry(mode, random));
+            }
+        }
+    }
+
+    /**
+     * Scratch state of one benchmark thread, like the scratch arrays of a matchmaking pass
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        private final SplittableRandom random = new SplittableRandom();
+        private QueueEntry[] matched;
+        private int[] teams;
+
+        @Setup(Level.Trial)
+        public void allocate(MatchmakingQueueBenchmark benchmark) {
+            matched = new QueueEntry[2 * benchmark.teamSize];
+            teams = new int[2 * benchmark.teamSize];
+        }
+    }
+
+    /**
+     * A player joins and leaves again, so the queue keeps its size
+     */
+    @Benchmark
+    public QueueEntry joinAndLeave(Worker worker) {
+        int mode = worker.random.nextInt(GAME_MODES);
+        MatchmakingQueue queue = queues[mode];
+        QueueEntry entry = newEntry(mode, worker.random);
+
+        synchronized (queue) {
+            queue.add(entry);
+        }
+        synchronized (queue) {
+            return queue.remove(entry.getPlayerId());
+        }
+    }
+
+    /**
+     * Build a match around a random seeker. Nothing is removed, so the queue is unchanged.
+     */
+    @Benchmark
+    public int findMatch(Worker worker) {
+        MatchmakingQueue queue = queues[worker.random.nextInt(GAME_MODES)];
+        QueueEntry seeker = newEntry(0, worker.random);
+
+        synchronized (queue) {
+            return queue.findMatch(seeker, window, teamSize, worker.matched, worker.teams);
+        }
+    }
+
+    /**
+     * Three threads join and leave while one searches for matches, all on the same queues
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public QueueEntry contendedJoinAndLeave(Worker worker) {
+        return joinAndLeave(worker);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int contendedFindMatch(Worker worker) {
+        return findMatch(worker);
+    }
+
+    private static QueueEntry newEntry(int mode, SplittableRandom random) {
+        UUID playerId = new UUID(random.nextLong(), random.nextLong());
+        return new QueueEntry(Collections.singletonList(playerId), "mode-" + mode,
+                1000 + random.nextInt(RATING_SPREAD) - RATING_SPREAD / 2, 0L);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pvparena.benchmarks;
+
+import com.pvparena.managers.ConfigSnapshot;
+import com.pvparena.managers.MessageTemplate;
+import org.bukkit.ChatColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message rendering as done by {@code ConfigManager.getMessage}, against the
+ * old approach of translating colors and replacing placeholders on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBenchmark {
+
+    private static final String RAW_SUDDEN_DEATH = "&c&lSudden death! &eThe next elimination wins, draw in {seconds}s";
+
+    private ConfigSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void loadConfig() {
+        snapshot = BukkitStandIns.loadDefaultConfig();
+    }
+
+    @Benchmark
+    public String renderPlain() {
+        return snapshot.getMessage("queue-left").render();
+    }
+
+    @Benchmark
+    public String renderPlaceholder() {
+        return snapshot.getMessage("match-sudden-death").render("seconds", "60");
+    }
+
+    @Benchmark
+    public String renderTwoPlaceholders() {
+        return snapshot.getMessage("party-too-large").render("player", "Notch", "size", "4");
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return new MessageTemplate(ChatColor.translateAlternateColorCodes('&', RAW_SUDDEN_DEATH))
+                .render("seconds", "60");
+    }
+
+    /**
+     * Baseline: what every message cost before messages were precompiled
+     */
+    @Benchmark
+    public String translateAndReplace() {
+        return ChatColor.translateAlternateColorCodes('&', RAW_SUDDEN_DEATH).replace("{seconds}", "60");
+    }
+}
@@ -0,0 +1,78 @@
+package com.pvparena.benchmarks;
+
+import com.pvparena.managers.SlotAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arena slot allocation at high occupancy. The arena manager allocates a slot
+ * for every arena it pastes and releases it after the cleanup delay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlotAllocatorBenchmark {
+
+    private static final int CELL_SIZE = 512;
+
+    @Param({"1000", "100000"})
+    private int allocatedSlots;
+
+    private SlotAllocator allocator;
+
+    /**
+     * Allocate every slot of a full grid, then release one slot in ten
+     */
+    @Setup(Level.Iteration)
+    public void fillGrid() {
+        allocator = new SlotAllocator(CELL_SIZE, allocatedSlots);
+        for (int i = 0; i < allocatedSlots; i++) {
+            allocator.allocate(0L);
+        }
+        for (int slot = 0; slot < allocatedSlots; slot += 10) {
+            allocator.release(slot, 0L);
+        }
+    }
+
+    /**
+     * Reserve a slot, compute its center and release it again. The slot passes
+     * through the cooldown queue with no delay, so the free-list never runs dry.
+     */
+    @Benchmark
+    public int allocateAndRelease() {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int allocateAndReleaseContended() {
+        return cycle();
+    }
+
+    private int cycle() {
+        long now = System.currentTimeMillis();
+        int slot = allocator.allocate(now);
+        if (slot < 0) {
+            return slot;
+        }
+        int center = allocator.getCenterX(slot) ^ allocator.getCenterZ(slot);
+        allocator.release(slot, now);
+        return center;
+    }
+}
@@ -0,0 +1,349 @@
+package com.pvparena.simulation;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.pvparena.managers.ArenaManager;
+import com.pvparena.managers.MatchManager;
+import com.pvparena.managers.MetricsRegistry;
+import com.pvparena.managers.QueueManager;
+import com.pvparena.models.GameMode;
+import com.pvparena.models.Match;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load simulation of the whole match lifecycle on a mocked server. Synthetic
+ * players click the compass, pick a game mode, wait in the queue, fight and die
+ * or quit, against the real queue, match and arena managers. Afterwards every
+ * queue is drained and every match fought out, and the state left behind is
+ * reported as leaks.
+ *
+ * Arguments are {@code --name value} pairs, see {@link SimulationSettings}.
+ * Exits with status 1 if anything leaked.
+ */
+public final class LoadSimulation {
+
+    private static final String MAIN_WORLD = "world";
+    private static final String PVP_WORLD = "pvp"; // pvp-world-name of the default config
+    private static final int LEAVE_SLOT = 26; // Leave queue button of the game mode menu
+    private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final SimulationSettings settings;
+    private final ServerMock server;
+    private final SplittableRandom random;
+    private final List<SimulatedPlayer> players;
+    private final List<SimulatedPlayer> departed;
+
+    private final MetricsRegistry harnessMetrics;
+    private final MetricsRegistry.Histogram tickTime;
+    private final MetricsRegistry.Histogram taskTime;
+    private final MetricsRegistry.Histogram actionTime;
+    private final MetricsRegistry.Counter slowTicks;
+
+    private SimulatedPlugin plugin;
+    private int[] modeSlots;
+    private int tick;
+
+    private LoadSimulation(SimulationSettings settings, ServerMock server) {
+        this.settings = settings;
+        this.server = server;
+        this.random = new SplittableRandom(settings.seed);
+        this.players = new ArrayList<>();
+        this.departed = new ArrayList<>();
+
+        this.harnessMetrics = new MetricsRegistry();
+        this.tickTime = harnessMetrics.histogram("tick_seconds", "Main thread time of a whole tick");
+        this.taskTime = harnessMetrics.histogram("tick_tasks_seconds", "Scheduler tasks run in a tick");
+        this.actionTime = harnessMetrics.histogram("tick_player_actions_seconds", "Player events handled in a tick");
+        this.slowTicks = harnessMetrics.counter("ticks_over_budget_total", "Ticks that took longer than 50 ms");
+    }
+
+    public static void main(String[] args) {
+        SimulationSettings settings = SimulationSettings.parse(args);
+        int status;
+        try {
+            status = new LoadSimulation(settings, MockBukkit.mock()).run();
+        } finally {
+            MockBukkit.unmock();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * @return Process exit status, 1 if state leaked
+     */
+    private int run() {
+        server.addSimpleWorld(MAIN_WORLD);
+        server.addSimpleWorld(PVP_WORLD);
+        MockBukkit.createMockPlugin("WorldEdit");
+        plugin = MockBukkit.loadWith(SimulatedPlugin.class,
+                new PluginDescriptionFile("PVPArenaPlugin", "simulation", SimulatedPlugin.class.getName()), settings);
+
+        List<Integer> slots = new ArrayList<>();
+        for (GameMode mode : plugin.getConfigManager().getGameModes().values()) {
+            slots.add(mode.getSlot());
+        }
+        modeSlots = slots.stream().mapToInt(Integer::intValue).toArray();
+        if (modeSlots.length == 0) {
+            throw new IllegalStateException("The default config has no game modes");
+        }
+
+        System.out.println("Simulating " + settings);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < settings.players; i++) {
+            addPlayer();
+        }
+        for (int i = 0; i < settings.ticks; i++) {
+            tick(true);
+        }
+
+        // Nobody joins any more, queued players leave and running matches are fought out
+        int drained = 0;
+        while (drained < settings.drainTicks && !isSettled()) {
+            tick(false);
+            drained++;
+        }
+
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        report(wallMillis, drained);
+        return reportLeaks() ? 1 : 0;
+    }
+
+    private void addPlayer() {
+        PlayerMock player = server.addPlayer();
+        player.getInventory().setItemInMainHand(plugin.getCompassItem());
+        players.add(new SimulatedPlayer(player, tick + between(settings.minThinkTicks, settings.maxThinkTicks)));
+    }
+
+    /**
+     * Run the actions due this tick, then one server tick
+     * @param load Whether players still join queues and fight at their own pace
+     */
+    private void tick(boolean load) {
+        long start = System.nanoTime();
+
+        // Players that quit are replaced at the end of the list, they act from the next tick on
+        int count = players.size();
+        for (int i = 0; i < count; i++) {
+            act(players.get(i), load);
+        }
+        players.removeIf(simulated -> simulated.state == SimulatedPlayer.State.QUIT);
+
+        actionTime.recordSince(start);
+        long tasksStart = System.nanoTime();
+        server.getScheduler().performOneTick();
+        taskTime.recordSince(tasksStart);
+
+        long elapsed = System.nanoTime() - start;
+        tickTime.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+        if (elapsed > TICK_BUDGET_NANOS) {
+            slowTicks.increment();
+        }
+        tick++;
+    }
+
+    private void act(SimulatedPlayer simulated, boolean load) {
+        PlayerMock player = simulated.player;
+        MatchManager matchManager = plugin.getMatchManager();
+        QueueManager queueManager = plugin.getQueueManager();
+
+        switch (simulated.state) {
+            case IDLE:
+                if (!load || tick < simulated.nextActionTick) {
+                    return;
+                }
+                openMenu(player);
+                player.simulateInventoryClick(modeSlots[random.nextInt(modeSlots.length)]);
+                if (queueManager.isInQueue(player)) {
+                    simulated.state = SimulatedPlayer.State.QUEUED;
+                    simulated.queuedAt = tick;
+                } else {
+                    idle(simulated);
+                }
+                return;
+
+            case QUEUED:
+                Match found = matchManager.getMatch(player.getUniqueId());
+                if (found != null) {
+                    if (found.getState().isFighting()) {
+                        simulated.state = SimulatedPlayer.State.FIGHTING;
+                        simulated.nextActionTick = tick + between(settings.minFightTicks, settings.maxFightTicks);
+                    }
+                    return;
+                }
+                if (matchManager.isInMatch(player)) {
+                    return; // Matched, the arena is still being pasted
+                }
+                if (!queueManager.isInQueue(player)) {
+                    idle(simulated); // Matched, but the match never started
+                    return;
+                }
+                if (load && tick - simulated.queuedAt < settings.maxQueueTicks) {
+                    return;
+                }
+                if (load && random.nextDouble() < settings.quitChance) {
+                    quit(simulated);
+                    return;
+                }
+                openMenu(player);
+                player.simulateInventoryClick(LEAVE_SLOT);
+                if (!queueManager.isInQueue(player)) {
+                    idle(simulated);
+                }
+                return;
+
+            case FIGHTING:
+                if (matchManager.getMatch(player.getUniqueId()) == null) {
+                    idle(simulated); // The other team lost, or the match was drawn
+                    return;
+                }
+                if (load && tick < simulated.nextActionTick) {
+                    return;
+                }
+                if (load && random.nextDouble() < settings.quitChance) {
+                    quit(simulated);
+                    return;
+                }
+                server.getPluginManager().callEvent(
+                        new PlayerDeathEvent(player, new ArrayList<>(), 0, player.getName() + " died"));
+                idle(simulated);
+                return;
+
+            default:
+        }
+    }
+
+    /**
+     * Right click the compass, handing a new one out if a match cleared the inventory
+     */
+    private void openMenu(PlayerMock player) {
+        ItemStack compass = plugin.getCompassItem();
+        if (!compass.isSimilar(player.getInventory().getItemInMainHand())) {
+            player.getInventory().setItemInMainHand(compass);
+        }
+        server.getPluginManager().callEvent(new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR,
+                player.getInventory().getItemInMainHand(), null, BlockFace.SELF));
+    }
+
+    private void idle(SimulatedPlayer simulated) {
+        simulated.state = SimulatedPlayer.State.IDLE;
+        simulated.nextActionTick = tick + between(settings.minThinkTicks, settings.maxThinkTicks);
+    }
+
+    /**
+     * Disconnect a player for good. A new player joins in its place while the load lasts.
+     */
+    private void quit(SimulatedPlayer simulated) {
+        simulated.player.disconnect();
+        simulated.state = SimulatedPlayer.State.QUIT;
+        departed.add(simulated);
+        addPlayer();
+    }
+
+    private int between(int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+
+    /**
+     * Check whether every match ended and every arena is back in the pool
+     */
+    private boolean isSettled() {
+        ArenaManager arenaManager = plugin.getArenaManager();
+        return plugin.getMatchManager().getActiveMatches() == 0
+                && plugin.getQueueManager().getTotalInQueue() == 0
+                && plugin.getPasteManager().getPendingJobs() == 0
+                && arenaManager.getResettingArenaCount() == 0
+                && arenaManager.getAllocatedSlotCount() == arenaManager.getPooledArenaCount();
+    }
+
+    private void report(long wallMillis, int drainTicks) {
+        MetricsRegistry metrics = plugin.getMetrics();
+        long matchesFound = metrics.counter("matches_found_total", "").get();
+        long matchesEnded = metrics.histogram("match_duration_seconds", "").getCount();
+        double simulatedMinutes = settings.ticks / 1200.0;
+
+        System.out.println();
+        System.out.println("=== Throughput ===");
+        System.out.println(String.format(Locale.ROOT, "Simulated %d + %d ticks in %.1f s (%.0f ticks/s)",
+                settings.ticks, drainTicks, wallMillis / 1000.0, (settings.ticks + drainTicks) * 1000.0 / Math.max(1, wallMillis)));
+        System.out.println(String.format(Locale.ROOT, "Matches found: %d (%.1f per simulated minute), ended: %d",
+                matchesFound, matchesFound / simulatedMinutes, matchesEnded));
+        System.out.println("Players quit: " + departed.size());
+
+        System.out.println();
+        System.out.println("=== Main thread per tick ===");
+        harnessMetrics.describe().forEach(System.out::println);
+
+        System.out.println();
+        System.out.println("=== Plugin metrics ===");
+        try {
+            metrics.describe().forEach(System.out::println);
+        } catch (UnsupportedOperationException e) {
+            // A gauge asked the mocked server for something it does not implement
+            System.out.println("Unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Print the state left behind after draining
+     * @return true if anything leaked
+     */
+    private boolean reportLeaks() {
+        MatchManager matchManager = plugin.getMatchManager();
+        QueueManager queueManager = plugin.getQueueManager();
+        ArenaManager arenaManager = plugin.getArenaManager();
+
+        List<SimulatedPlayer> everyone = new ArrayList<>(players);
+        everyone.addAll(departed);
+        int matchEntries = 0;
+        int queueEntries = 0;
+        for (SimulatedPlayer simulated : everyone) {
+            if (matchManager.isInMatch(simulated.player)) {
+                matchEntries++;
+            }
+            if (queueManager.isInQueue(simulated.player)) {
+                queueEntries++;
+            }
+        }
+
+        // Every arena left must be a clean one waiting in the pool
+        int leakedSlots = arenaManager.getAllocatedSlotCount() - arenaManager.getPooledArenaCount()
+                - arenaManager.getResettingArenaCount();
+
+        // Only the world channels of the players still online may remain
+        Set<World> worlds = new HashSet<>();
+        for (Player player : server.getOnlinePlayers()) {
+            worlds.add(player.getWorld());
+        }
+        int leakedChannels = plugin.getChatManager().getChannelCount() - worlds.size();
+
+        System.out.println();
+        System.out.println("=== Leaks ===");
+        System.out.println("Active matches: " + matchManager.getActiveMatches());
+        System.out.println("Players still tracked in a match: " + matchEntries);
+        System.out.println("Players still queued: " + queueEntries + " (queues hold " + queueManager.getTotalInQueue() + ")");
+        System.out.println("Arena slots never released: " + leakedSlots + " (pooled: " + arenaManager.getPooledArenaCount() + ")");
+        System.out.println("Stale chat channels: " + leakedChannels);
+
+        boolean leaked = matchManager.getActiveMatches() > 0 || matchEntries > 0 || queueEntries > 0
+                || queueManager.getTotalInQueue() > 0 || leakedSlots > 0 || leakedChannels > 0;
+        System.out.println(leaked ? "LEAKED" : "No leaks");
+        return leaked;
+    }
+}
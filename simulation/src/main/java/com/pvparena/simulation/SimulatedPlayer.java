@@ -0,0 +1,26 @@
+package com.pvparena.simulation;
+
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+
+/**
+ * A synthetic player and where it is in the compass, queue, match cycle
+ */
+class SimulatedPlayer {
+
+    enum State {
+        IDLE,     // Waiting to click the compass
+        QUEUED,   // In a queue, or matched while the arena is pasted
+        FIGHTING, // In a running match
+        QUIT      // Disconnected, never comes back
+    }
+
+    final PlayerMock player;
+    State state = State.IDLE;
+    int nextActionTick; // IDLE: tick of the next compass click, FIGHTING: tick the player dies or quits
+    int queuedAt;
+
+    SimulatedPlayer(PlayerMock player, int nextActionTick) {
+        this.player = player;
+        this.nextActionTick = nextActionTick;
+    }
+}
@@ -0,0 +1,46 @@
+package com.pvparena.simulation;
+
+import com.pvparena.PVPArenaPlugin;
+import com.pvparena.managers.MetricsRegistry;
+import com.pvparena.managers.PasteManager;
+import com.pvparena.managers.SchematicManager;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.util.logging.Level;
+
+/**
+ * The plugin as loaded by the simulation. Everything runs for real except
+ * schematic pasting; chunk pre-loading and the metrics dump are turned off.
+ */
+public class SimulatedPlugin extends PVPArenaPlugin {
+
+    private final SimulationSettings settings;
+
+    public SimulatedPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file,
+                           SimulationSettings settings) {
+        super(loader, description, dataFolder, file);
+        this.settings = settings;
+    }
+
+    @Override
+    public void onEnable() {
+        saveDefaultConfig();
+        getConfig().set("arena-chunks.preload", false);
+        getConfig().set("metrics.dump-interval", 0);
+        saveConfig();
+
+        // Arena and match logging would drown the report
+        if (!settings.verbose) {
+            getLogger().setLevel(Level.WARNING);
+        }
+
+        super.onEnable();
+    }
+
+    @Override
+    protected SchematicManager createSchematicManager(PasteManager pasteManager, MetricsRegistry metrics) {
+        return new SimulatedSchematicManager(this, getConfigManager(), pasteManager, metrics, settings);
+    }
+}
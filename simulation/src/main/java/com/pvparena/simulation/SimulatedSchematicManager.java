@@ -0,0 +1,96 @@
+package com.pvparena.simulation;
+
+import com.pvparena.managers.ConfigManager;
+import com.pvparena.managers.MetricsRegistry;
+import com.pvparena.managers.PasteManager;
+import com.pvparena.managers.SchematicManager;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.Location;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Schematic manager with a single imaginary schematic. Pastes go through the
+ * real {@link PasteManager} and use up its block budget, but write no blocks.
+ */
+public class SimulatedSchematicManager extends SchematicManager {
+
+    private final PasteManager pasteManager;
+    private final File schematic;
+    private final int size;
+    private final int height;
+
+    public SimulatedSchematicManager(Plugin plugin, ConfigManager configManager, PasteManager pasteManager,
+                                     MetricsRegistry metrics, SimulationSettings settings) {
+        super(plugin, configManager, pasteManager, metrics);
+        this.pasteManager = pasteManager;
+        this.schematic = new File(new File(plugin.getDataFolder(), "arenas"), "simulated.schem");
+        this.size = settings.arenaSize;
+        this.height = settings.arenaHeight;
+    }
+
+    @Override
+    public CompletableFuture<SchematicDimensions> pasteSchematic(File schematicFile, Location location) {
+        BlockVector3 pasteLocation = BlockVector3.at(location.getBlockX() - size / 2, location.getBlockY(),
+                location.getBlockZ() - size / 2);
+        return pasteManager.submit(new SimulatedPasteJob(size * height * size))
+                .thenApply(ignored -> new SchematicDimensions(size, height, size, pasteLocation, pasteLocation));
+    }
+
+    @Override
+    public File getRandomSchematic() {
+        return schematic;
+    }
+
+    @Override
+    public File getSchematic(String name) {
+        return schematic.getName().equals(name) || schematic.getName().equals(name + ".schem") ? schematic : null;
+    }
+
+    @Override
+    public List<File> getSchematicFiles() {
+        return Collections.singletonList(schematic);
+    }
+
+    @Override
+    public int getSchematicCount() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxFootprint() {
+        return size;
+    }
+
+    @Override
+    public boolean isWorldEditAvailable() {
+        return true;
+    }
+
+    /**
+     * Counts blocks down without touching the world
+     */
+    private static class SimulatedPasteJob extends PasteManager.PasteJob {
+        private int remaining;
+
+        SimulatedPasteJob(int blocks) {
+            this.remaining = blocks;
+        }
+
+        @Override
+        protected int step(int maxBlocks) {
+            int written = Math.min(maxBlocks, remaining);
+            remaining -= written;
+            return written;
+        }
+
+        @Override
+        protected boolean isDone() {
+            return remaining == 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.pvparena.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parameters of a simulation run, read from {@code --name value} arguments
+ */
+public class SimulationSettings {
+
+    final int players;
+    final int ticks;
+    final int drainTicks;
+    final long seed;
+    final int minThinkTicks;
+    final int maxThinkTicks;
+    final int minFightTicks;
+    final int maxFightTicks;
+    final int maxQueueTicks;
+    final double quitChance;
+    final int arenaSize;
+    final int arenaHeight;
+    final boolean verbose;
+
+    SimulationSettings(Map<String, String> values) {
+        this.players = getInt(values, "players", 1000);
+        this.ticks = getInt(values, "ticks", 6000);
+        this.drainTicks = getInt(values, "drain-ticks", 2400);
+        this.seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        this.minThinkTicks = getInt(values, "min-think-ticks", 20);
+        this.maxThinkTicks = Math.max(minThinkTicks, getInt(values, "max-think-ticks", 200));
+        this.minFightTicks = getInt(values, "min-fight-ticks", 100);
+        this.maxFightTicks = Math.max(minFightTicks, getInt(values, "max-fight-ticks", 1200));
+        this.maxQueueTicks = getInt(values, "max-queue-ticks", 1200);
+        this.quitChance = Double.parseDouble(values.getOrDefault("quit-chance", "0.05"));
+        this.arenaSize = getInt(values, "arena-size", 31);
+        this.arenaHeight = getInt(values, "arena-height", 16);
+        this.verbose = Boolean.parseBoolean(values.getOrDefault("verbose", "false"));
+
+        if (players < 2 || ticks < 1) {
+            throw new IllegalArgumentException("At least 2 players and 1 tick are required");
+        }
+        if (quitChance < 0 || quitChance > 1) {
+            throw new IllegalArgumentException("quit-chance must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Parse {@code --name value} pairs, a flag without a value is read as true
+     */
+    static SimulationSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                values.put(name, args[++i]);
+            } else {
+                values.put(name, "true");
+            }
+        }
+        return new SimulationSettings(values);
+    }
+
+    private static int getInt(Map<String, String> values, String name, int def) {
+        String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : def;
+    }
+
+    @Override
+    public String toString() {
+        return players + " players, " + ticks + " ticks (+" + drainTicks + " drain), seed " + seed +
+                ", think " + minThinkTicks + "-" + maxThinkTicks + " ticks, fight " + minFightTicks + "-" +
+                maxFightTicks + " ticks, quit chance " + quitChance + ", arena " + arenaSize + "x" +
+                arenaHeight + "x" + arenaSize;
+    }
+}
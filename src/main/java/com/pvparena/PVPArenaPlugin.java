@@ -1,15 +1,28 @@
 package com.pvparena;
 
 import com.pvparena.gui.GameModeGUI;
+import com.pvparena.gui.MenuItemRegistry;
+import com.pvparena.listeners.ArenaBlockListener;
 import com.pvparena.listeners.ChatListener;
 import com.pvparena.listeners.CompassClickListener;
 import com.pvparena.listeners.PlayerDeathListener;
 import com.pvparena.listeners.PlayerQuitListener;
+import com.pvparena.listeners.StatsListener;
 import com.pvparena.managers.ArenaManager;
+import com.pvparena.managers.ChatManager;
 import com.pvparena.managers.ConfigManager;
+import com.pvparena.managers.ConfigSnapshot;
 import com.pvparena.managers.MatchManager;
+import com.pvparena.managers.MetricsRegistry;
+import com.pvparena.managers.PartyManager;
+import com.pvparena.managers.PasteManager;
 import com.pvparena.managers.QueueManager;
 import com.pvparena.managers.SchematicManager;
+import com.pvparena.managers.StatsManager;
+import com.pvparena.managers.TimingWheel;
+import com.pvparena.models.GameMode;
+import com.pvparena.models.Party;
+import com.pvparena.models.PlayerStats;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -20,16 +33,49 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
 
 public class PVPArenaPlugin extends JavaPlugin {
 
+    public static final String COMPASS_ITEM_ID = "arena-compass";
+
     private static PVPArenaPlugin instance;
     private ConfigManager configManager;
+    private MetricsRegistry metrics;
+    private BukkitTask metricsDumpTask;
+    private volatile long pendingSchedulerTasks; // Sampled on the main thread for the metrics gauge
+    private TimingWheel timingWheel;
+    private PasteManager pasteManager;
     private SchematicManager schematicManager;
     private QueueManager queueManager;
     private ArenaManager arenaManager;
     private MatchManager matchManager;
+    private PartyManager partyManager;
+    private ChatManager chatManager;
+    private StatsManager statsManager;
+    private GameModeGUI gameModeGUI;
+    private MenuItemRegistry menuItemRegistry;
+
+    public PVPArenaPlugin() {
+        super();
+    }
+
+    /**
+     * Constructor for loading the plugin without a server, used by the load simulation
+     */
+    protected PVPArenaPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
@@ -58,17 +104,54 @@ public class PVPArenaPlugin extends JavaPlugin {
             getLogger().warning("PVP world '" + configManager.getPvpWorldName() + "' does not exist! Please create it.");
         }
 
+        // Managers register their metrics as they are created
+        metrics = new MetricsRegistry();
+        // The scheduler is not safe to query from the async metrics dump, sample it on the main thread
+        metrics.gauge("scheduler_tasks_pending", "Tasks of this plugin waiting in the Bukkit scheduler", () -> pendingSchedulerTasks);
+        getServer().getScheduler().runTaskTimer(this, () -> pendingSchedulerTasks = getServer().getScheduler().getPendingTasks()
+                .stream().filter(task -> task.getOwner() == this).count(), 20L, 20L);
+
+        // Every match and arena timer runs on one shared wheel, advanced once per tick
+        timingWheel = new TimingWheel(getLogger());
+        MetricsRegistry.Histogram timerTickTime = metrics.histogram("main_thread_tick_seconds{subsystem=\"timers\"}",
+                "Main thread time spent per tick by a subsystem");
+        metrics.gauge("timers_pending", "Match and arena timers waiting to fire", timingWheel::getPendingCount);
+        getServer().getScheduler().runTaskTimer(this, () -> {
+            long start = System.nanoTime();
+            timingWheel.advance();
+            timerTickTime.recordSince(start);
+        }, 1L, 1L);
+
         // Initialize managers
-        schematicManager = new SchematicManager(this);
-        arenaManager = new ArenaManager(this, schematicManager, pvpWorld);
+        chatManager = new ChatManager();
+        pasteManager = new PasteManager(this, configManager, metrics);
+        schematicManager = createSchematicManager(pasteManager, metrics);
+        arenaManager = new ArenaManager(this, configManager, schematicManager, pasteManager, timingWheel, metrics, pvpWorld);
         queueManager = new QueueManager(this);
         matchManager = new MatchManager(this);
+        partyManager = new PartyManager(this);
+
+        // Ratings come from the stats of each player
+        statsManager = new StatsManager(this);
+        queueManager.setRatingProvider(statsManager::getRating);
+
+        // Open game mode menus follow queue size changes
+        gameModeGUI = new GameModeGUI(this);
+        queueManager.setSizeListener(gameModeGUI::onQueueSizeChanged);
+
+        // Usable items are recognised by their persistent data tag
+        menuItemRegistry = new MenuItemRegistry(this);
+        menuItemRegistry.register(COMPASS_ITEM_ID, gameModeGUI::openGUI);
 
         // Register listeners
         getServer().getPluginManager().registerEvents(new CompassClickListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerDeathListener(this), this);
         getServer().getPluginManager().registerEvents(new ChatListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerQuitListener(this), this);
+        getServer().getPluginManager().registerEvents(new ArenaBlockListener(this), this);
+        getServer().getPluginManager().registerEvents(new StatsListener(this), this);
+
+        startMetricsDump();
 
         getLogger().info("PVP Arena Plugin has been enabled with WorldEdit schematic support!");
         getLogger().info("Loaded " + schematicManager.getSchematicCount() + " arena schematic(s)");
@@ -90,11 +173,43 @@ public class PVPArenaPlugin extends JavaPlugin {
             matchManager.cleanup();
         }
 
+        if (statsManager != null) {
+            statsManager.shutdown();
+        }
+
+        if (arenaManager != null) {
+            arenaManager.shutdown();
+        }
+
+        if (pasteManager != null) {
+            pasteManager.shutdown();
+        }
+
         getLogger().info("PVP Arena Plugin has been disabled!");
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (command.getName().equalsIgnoreCase("party")) {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage("§cOnly players can use parties!");
+                return true;
+            }
+            return handlePartyCommand((Player) sender, args);
+        }
+
+        if (command.getName().equalsIgnoreCase("chat")) {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage("§cOnly players can switch chat channels!");
+                return true;
+            }
+            return handleChatCommand((Player) sender, args);
+        }
+
+        if (command.getName().equalsIgnoreCase("stats")) {
+            return handleStatsCommand(sender, args);
+        }
+
         if (command.getName().equalsIgnoreCase("pvparena")) {
             if (!sender.hasPermission("pvparena.admin")) {
                 sender.sendMessage("§cYou don't have permission to use this command!");
@@ -105,6 +220,7 @@ public class PVPArenaPlugin extends JavaPlugin {
                 sender.sendMessage("§e=== PVP Arena Commands ===");
                 sender.sendMessage("§e/pvparena reload §7- Reload configuration and schematics");
                 sender.sendMessage("§e/pvparena debug §7- Show debug information");
+                sender.sendMessage("§e/pvparena metrics §7- Show performance metrics");
                 if (sender instanceof Player) {
                     sender.sendMessage("§e/pvparena give §7- Get arena compass");
                 }
@@ -112,9 +228,21 @@ public class PVPArenaPlugin extends JavaPlugin {
             }
 
             if (args[0].equalsIgnoreCase("reload")) {
-                reloadConfig();
-                configManager = new ConfigManager(this);
-                schematicManager.reload();
+                if (!configManager.reload()) {
+                    sender.sendMessage("§cConfiguration has errors, keeping the previous one. See the console.");
+                    return true;
+                }
+                pasteManager.reloadSettings();
+                // The pinned chunk area and the grid check depend on the schematic sizes, measured off the main thread
+                schematicManager.reload().thenRun(() -> {
+                    arenaManager.loadChunkSettings();
+                    arenaManager.checkGridFits();
+                });
+                arenaManager.loadPoolSettings();
+                arenaManager.loadResetSettings();
+                queueManager.loadSettings();
+                statsManager.loadSettings();
+                startMetricsDump();
                 sender.sendMessage("§aConfiguration reloaded!");
                 sender.sendMessage("§aReloaded " + schematicManager.getSchematicCount() + " schematic(s)");
                 return true;
@@ -132,9 +260,32 @@ public class PVPArenaPlugin extends JavaPlugin {
                     }
                 }
 
+                sender.sendMessage("§7Cached Clipboards: §a" + schematicManager.getCachedClipboardCount() +
+                        " §7(~" + (schematicManager.getCacheMemoryUsage() / 1024) + " KB)");
+
                 sender.sendMessage("§7Queued Players: §a" + queueManager.getTotalInQueue());
+                for (String mode : queueManager.getGameModes()) {
+                    sender.sendMessage("  §7- §f" + mode + "§7: §a" + queueManager.getQueueSize(mode) +
+                            " §7queued, wait avg §a" + (queueManager.getAverageWaitTime(mode) / 1000.0) +
+                            "s §7p95 §a" + (queueManager.getP95WaitTime(mode) / 1000.0) + "s");
+                }
                 sender.sendMessage("§7Active Matches: §a" + matchManager.getActiveMatches());
+                sender.sendMessage("§7Parties: §a" + partyManager.getPartyCount());
+                sender.sendMessage("§7Chat Channels: §a" + chatManager.getChannelCount());
                 sender.sendMessage("§7Active Arenas: §a" + arenaManager.getActiveArenaCount());
+                sender.sendMessage("§7Pooled Arenas: §a" + arenaManager.getPooledArenaCount());
+                sender.sendMessage("§7Resetting Arenas: §a" + arenaManager.getResettingArenaCount());
+                sender.sendMessage("§7Pending Pastes: §a" + pasteManager.getPendingJobs());
+                sender.sendMessage("§7Pending Timers: §a" + timingWheel.getPendingCount());
+                return true;
+            }
+
+            if (args[0].equalsIgnoreCase("metrics")) {
+                sender.sendMessage("§e=== PVP Arena Metrics ===");
+                for (String line : metrics.describe()) {
+                    int separator = line.indexOf(": ");
+                    sender.sendMessage("§7" + line.substring(0, separator + 1) + " §a" + line.substring(separator + 2));
+                }
                 return true;
             }
 
@@ -153,6 +304,39 @@ public class PVPArenaPlugin extends JavaPlugin {
         return false;
     }
 
+    /**
+     * Create the schematic manager. The load simulation replaces it with one
+     * that pastes without WorldEdit.
+     */
+    protected SchematicManager createSchematicManager(PasteManager pasteManager, MetricsRegistry metrics) {
+        return new SchematicManager(this, configManager, pasteManager, metrics);
+    }
+
+    /**
+     * (Re)start the periodic metrics dump to the data folder
+     */
+    private void startMetricsDump() {
+        if (metricsDumpTask != null) {
+            metricsDumpTask.cancel();
+            metricsDumpTask = null;
+        }
+
+        ConfigSnapshot config = configManager.getSnapshot();
+        long interval = config.getMetricsDumpInterval();
+        if (interval <= 0) {
+            return;
+        }
+
+        Path file = getDataFolder().toPath().resolve(config.getMetricsFile());
+        metricsDumpTask = getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                metrics.writeTo(file);
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING, "Failed to write metrics to " + file, e);
+            }
+        }, 20L * interval, 20L * interval);
+    }
+
     public ItemStack getCompassItem() {
         ItemStack compass = new ItemStack(Material.COMPASS);
         ItemMeta meta = compass.getItemMeta();
@@ -163,6 +347,7 @@ public class PVPArenaPlugin extends JavaPlugin {
         meta.setLore(configManager.getCompassLore());
         meta.addEnchant(Enchantment.LUCK, 1, true);
         meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+        menuItemRegistry.tag(meta, COMPASS_ITEM_ID);
 
         compass.setItemMeta(meta);
         return compass;
@@ -176,10 +361,22 @@ public class PVPArenaPlugin extends JavaPlugin {
         return configManager;
     }
 
+    public PasteManager getPasteManager() {
+        return pasteManager;
+    }
+
     public SchematicManager getSchematicManager() {
         return schematicManager;
     }
 
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
     public QueueManager getQueueManager() {
         return queueManager;
     }
@@ -191,4 +388,139 @@ public class PVPArenaPlugin extends JavaPlugin {
     public MatchManager getMatchManager() {
         return matchManager;
     }
+
+    public PartyManager getPartyManager() {
+        return partyManager;
+    }
+
+    public GameModeGUI getGameModeGUI() {
+        return gameModeGUI;
+    }
+
+    public MenuItemRegistry getMenuItemRegistry() {
+        return menuItemRegistry;
+    }
+
+    public ChatManager getChatManager() {
+        return chatManager;
+    }
+
+    public StatsManager getStatsManager() {
+        return statsManager;
+    }
+
+    private boolean handleChatCommand(Player player, String[] args) {
+        if (!configManager.getSnapshot().isChatChannelsEnabled()) {
+            player.sendMessage(configManager.getMessage("chat-channels-disabled"));
+            return true;
+        }
+
+        if (args.length == 0) {
+            player.sendMessage("§e=== Chat Channels ===");
+            player.sendMessage("§e/chat world §7- Talk to everyone in your world");
+            player.sendMessage("§e/chat match §7- Talk to the players in your match");
+            player.sendMessage("§e/chat queue §7- Talk to the players in your queue");
+            return true;
+        }
+
+        ChatManager.Channel channel;
+        try {
+            channel = ChatManager.Channel.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        String name = channel.name().toLowerCase();
+        if (chatManager.selectChannel(player, channel)) {
+            player.sendMessage(configManager.getMessage("chat-channel-set", "channel", name));
+        } else {
+            player.sendMessage(configManager.getMessage("chat-channel-unavailable", "channel", name));
+        }
+        return true;
+    }
+
+    private boolean handleStatsCommand(CommandSender sender, String[] args) {
+        Player target;
+        if (args.length >= 1) {
+            target = Bukkit.getPlayer(args[0]);
+            if (target == null) {
+                sender.sendMessage("§cPlayer not found!");
+                return true;
+            }
+        } else if (sender instanceof Player) {
+            target = (Player) sender;
+        } else {
+            return false;
+        }
+
+        Map<String, PlayerStats> stats = statsManager.getStats(target.getUniqueId());
+        sender.sendMessage(configManager.getMessage("stats-header", "player", target.getName()));
+        if (stats.isEmpty()) {
+            sender.sendMessage(configManager.getMessage("stats-none"));
+            return true;
+        }
+
+        for (Map.Entry<String, PlayerStats> entry : stats.entrySet()) {
+            GameMode mode = configManager.getGameMode(entry.getKey());
+            PlayerStats modeStats = entry.getValue();
+            sender.sendMessage(configManager.getMessage("stats-line",
+                    "gamemode", mode != null ? mode.getDisplayName() : entry.getKey(),
+                    "wins", String.valueOf(modeStats.getWins()),
+                    "losses", String.valueOf(modeStats.getLosses()),
+                    "draws", String.valueOf(modeStats.getDraws()),
+                    "rating", String.valueOf(modeStats.getRating())));
+        }
+        return true;
+    }
+
+    private boolean handlePartyCommand(Player player, String[] args) {
+        if (args.length == 0) {
+            player.sendMessage("§e=== Party Commands ===");
+            player.sendMessage("§e/party invite <player> §7- Invite a player to your party");
+            player.sendMessage("§e/party accept §7- Accept a party invite");
+            player.sendMessage("§e/party leave §7- Leave your party");
+            player.sendMessage("§e/party list §7- Show your party members");
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("invite") && args.length >= 2) {
+            Player target = Bukkit.getPlayer(args[1]);
+            if (target == null) {
+                player.sendMessage("§cPlayer not found!");
+                return true;
+            }
+            partyManager.invite(player, target);
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("accept")) {
+            partyManager.accept(player);
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("leave")) {
+            if (!partyManager.leave(player)) {
+                player.sendMessage(configManager.getMessage("party-none"));
+            }
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("list")) {
+            Party party = partyManager.getParty(player.getUniqueId());
+            if (party == null) {
+                player.sendMessage(configManager.getMessage("party-none"));
+                return true;
+            }
+
+            player.sendMessage("§e=== Party (" + party.size() + "/" + partyManager.getMaxSize() + ") ===");
+            for (UUID memberId : party.getMembers()) {
+                Player member = Bukkit.getPlayer(memberId);
+                String name = member != null ? member.getName() : memberId.toString();
+                player.sendMessage("  §7- §f" + name + (party.isLeader(memberId) ? " §6(Leader)" : ""));
+            }
+            return true;
+        }
+
+        return false;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.pvparena.gui;
 
 import com.pvparena.PVPArenaPlugin;
+import com.pvparena.managers.ConfigSnapshot;
 import com.pvparena.models.GameMode;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -10,100 +11,297 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
 
+/**
+ * The game mode menu. Icons are built once per config snapshot and only the
+ * queue count line is filled in when the menu opens. Menus are identified by
+ * their {@link GameModeMenu} holder, clicks are dispatched by slot.
+ *
+ * Open menus stay live: queue size changes mark their game mode dirty, and at
+ * most once per tick the icons of dirty modes are patched in every open menu.
+ *
+ * Icons cache their last rendering without synchronization, so menus are only
+ * built on the main thread. A {@link MenuBuilder} has icons of its own but the
+ * same rule: use each builder from a single thread.
+ */
 public class GameModeGUI {
 
+    private static final String TITLE = "§c§lSelect Game Mode";
+    private static final int SIZE = 27;
+    private static final int LEAVE_SLOT = 26;
+
     private final PVPArenaPlugin plugin;
+    private MenuTemplate template; // Rebuilt when the config snapshot changes, main thread only
+    private final Map<UUID, GameModeMenu> openMenus; // Viewer -> open menu, main thread only
+    private final Set<String> dirtyModes; // Game modes whose queue size changed since the last patch
+    private final AtomicBoolean patchScheduled;
 
     public GameModeGUI(PVPArenaPlugin plugin) {
         this.plugin = plugin;
+        this.openMenus = new HashMap<>();
+        this.dirtyModes = ConcurrentHashMap.newKeySet();
+        this.patchScheduled = new AtomicBoolean();
     }
 
     public void openGUI(Player player) {
-        Inventory inv = Bukkit.createInventory(null, 27, "§c§lSelect Game Mode");
-        
-        Map<String, GameMode> gameModes = plugin.getConfigManager().getGameModes();
-        
-        for (GameMode mode : gameModes.values()) {
-            ItemStack item = new ItemStack(mode.getIcon());
-            ItemMeta meta = item.getItemMeta();
-            
-            meta.setDisplayName(mode.getDisplayName());
-            
-            List<String> lore = new ArrayList<>();
-            lore.add("§7");
-            lore.add("§7Click to join queue");
-            int queueSize = plugin.getQueueManager().getQueueSize(mode.getKey());
-            lore.add("§7In queue: §e" + queueSize);
-            
-            meta.setLore(lore);
-            item.setItemMeta(meta);
-            
-            inv.setItem(mode.getSlot(), item);
+        GameModeMenu menu = buildMenu(getTemplate(), plugin.getQueueManager()::getQueueSize,
+                plugin.getQueueManager().isInQueue(player));
+        player.openInventory(menu.getInventory());
+        openMenus.put(player.getUniqueId(), menu);
+    }
+
+    /**
+     * Create a menu builder for a config snapshot, without a running plugin.
+     * Used by tools such as the benchmarks; the plugin opens menus with {@link #openGUI(Player)}.
+     * The builder is not thread-safe, see {@link MenuBuilder}.
+     * @param logger Receives warnings about game modes without a valid menu slot
+     */
+    public static MenuBuilder createMenuBuilder(ConfigSnapshot snapshot, Logger logger) {
+        return new MenuBuilder(new MenuTemplate(snapshot, logger));
+    }
+
+    /**
+     * Create a menu inventory filled with the icons of a template
+     * @param queueSizes Current queue size per game mode key
+     * @param inQueue Whether to show the leave queue button
+     */
+    private static GameModeMenu buildMenu(MenuTemplate menuTemplate, ToIntFunction<String> queueSizes, boolean inQueue) {
+        GameModeMenu menu = new GameModeMenu(menuTemplate.slotModes);
+        Inventory inv = Bukkit.createInventory(menu, SIZE, TITLE);
+        menu.setInventory(inv);
+
+        for (IconTemplate icon : menuTemplate.icons) {
+            int queueSize = queueSizes.applyAsInt(icon.mode.getKey());
+            inv.setItem(icon.slot, icon.render(queueSize));
+            menu.setShownQueueSize(icon.slot, queueSize);
         }
-        
+
         // Add leave queue button if in queue
-        if (plugin.getQueueManager().isInQueue(player)) {
-            ItemStack leaveItem = new ItemStack(Material.BARRIER);
-            ItemMeta meta = leaveItem.getItemMeta();
-            meta.setDisplayName("§c§lLeave Queue");
-            
-            List<String> lore = new ArrayList<>();
-            lore.add("§7");
-            lore.add("§7Click to leave the queue");
-            meta.setLore(lore);
-            
-            leaveItem.setItemMeta(meta);
-            inv.setItem(26, leaveItem);
+        if (inQueue) {
+            inv.setItem(LEAVE_SLOT, menuTemplate.leaveItem);
         }
-        
-        player.openInventory(inv);
+        return menu;
     }
 
-    public void handleClick(Player player, ItemStack clickedItem) {
-        if (clickedItem == null || clickedItem.getType() == Material.AIR) {
+    /**
+     * Stop updating the menu of a viewer
+     */
+    public void handleClose(Player player, GameModeMenu menu) {
+        openMenus.remove(player.getUniqueId(), menu);
+    }
+
+    /**
+     * Mark the queue of a game mode as changed. Safe to call from any thread;
+     * changes are coalesced and patched into open menus on the next tick.
+     */
+    public void onQueueSizeChanged(String gameMode) {
+        dirtyModes.add(gameMode);
+        if (patchScheduled.compareAndSet(false, true)) {
+            plugin.getTimingWheel().schedule(this::patchOpenMenus, 1L);
+        }
+    }
+
+    /**
+     * Update the queue count of dirty game modes in every open menu. Only slots
+     * whose shown count is out of date are rewritten.
+     */
+    private void patchOpenMenus() {
+        patchScheduled.set(false);
+        if (openMenus.isEmpty()) {
+            dirtyModes.clear();
             return;
         }
-        
+
+        MenuTemplate menuTemplate = getTemplate();
+        for (Iterator<String> it = dirtyModes.iterator(); it.hasNext(); ) {
+            String gameMode = it.next();
+            it.remove();
+
+            IconTemplate icon = menuTemplate.getIcon(gameMode);
+            if (icon == null) {
+                continue;
+            }
+
+            int queueSize = plugin.getQueueManager().getQueueSize(gameMode);
+            for (GameModeMenu menu : openMenus.values()) {
+                // Menus opened before a reload show other game mode objects and are left alone
+                if (menu.getGameMode(icon.slot) == icon.mode && menu.getShownQueueSize(icon.slot) != queueSize) {
+                    menu.getInventory().setItem(icon.slot, icon.render(queueSize));
+                    menu.setShownQueueSize(icon.slot, queueSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle a click inside an open menu
+     * @param slot Raw slot that was clicked
+     */
+    public void handleClick(Player player, GameModeMenu menu, int slot) {
         // Check for leave queue button
-        if (clickedItem.getType() == Material.BARRIER) {
+        if (slot == LEAVE_SLOT) {
             if (plugin.getQueueManager().removeFromQueue(player)) {
                 player.sendMessage(plugin.getConfigManager().getMessage("queue-left"));
             }
             player.closeInventory();
             return;
         }
-        
-        // Find matching game mode
-        Map<String, GameMode> gameModes = plugin.getConfigManager().getGameModes();
-        for (GameMode mode : gameModes.values()) {
-            if (mode.getIcon() == clickedItem.getType() && 
-                clickedItem.hasItemMeta() && 
-                clickedItem.getItemMeta().getDisplayName().equals(mode.getDisplayName())) {
-                
-                // Try to join queue
-                if (plugin.getMatchManager().isInMatch(player)) {
-                    player.sendMessage(plugin.getConfigManager().getMessage("already-in-match"));
-                    player.closeInventory();
-                    return;
-                }
-                
-                if (plugin.getQueueManager().isInQueue(player)) {
-                    player.sendMessage(plugin.getConfigManager().getMessage("already-in-queue"));
-                    player.closeInventory();
-                    return;
-                }
-                
-                if (plugin.getQueueManager().addToQueue(player, mode.getKey())) {
-                    player.sendMessage(plugin.getConfigManager().getMessage("queue-joined", 
-                        "gamemode", mode.getDisplayName()));
+
+        GameMode mode = menu.getGameMode(slot);
+        if (mode == null) {
+            return;
+        }
+
+        // Try to join queue
+        if (plugin.getMatchManager().isInMatch(player)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("already-in-match"));
+            player.closeInventory();
+            return;
+        }
+
+        if (plugin.getQueueManager().isInQueue(player)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("already-in-queue"));
+            player.closeInventory();
+            return;
+        }
+
+        if (plugin.getQueueManager().addToQueue(player, mode.getKey())) {
+            player.sendMessage(plugin.getConfigManager().getMessage("queue-joined",
+                "gamemode", mode.getDisplayName()));
+        }
+
+        player.closeInventory();
+    }
+
+    private MenuTemplate getTemplate() {
+        ConfigSnapshot snapshot = plugin.getConfigManager().getSnapshot();
+        if (template == null || template.snapshot != snapshot) {
+            template = new MenuTemplate(snapshot, plugin.getLogger());
+        }
+        return template;
+    }
+
+    /**
+     * Builds menus from the icons of one config snapshot, compiled once like
+     * the icons of the menus the plugin opens. Building renders into icons
+     * shared by every menu of this builder, so a builder must stay on one thread.
+     */
+    public static final class MenuBuilder {
+        private final MenuTemplate template;
+
+        private MenuBuilder(MenuTemplate template) {
+            this.template = template;
+        }
+
+        /**
+         * Create a menu inventory without opening it
+         * @param queueSizes Current queue size per game mode key
+         * @param inQueue Whether to show the leave queue button
+         */
+        public GameModeMenu build(ToIntFunction<String> queueSizes, boolean inQueue) {
+            return buildMenu(template, queueSizes, inQueue);
+        }
+    }
+
+    /**
+     * Pre-built icons of one config snapshot
+     */
+    private static class MenuTemplate {
+        private final ConfigSnapshot snapshot;
+        private final GameMode[] slotModes;
+        private final List<IconTemplate> icons;
+        private final Map<String, IconTemplate> iconsByMode;
+        private final ItemStack leaveItem;
+
+        MenuTemplate(ConfigSnapshot snapshot, Logger logger) {
+            this.snapshot = snapshot;
+            this.slotModes = new GameMode[SIZE];
+            this.icons = new ArrayList<>();
+            this.iconsByMode = new HashMap<>();
+
+            for (GameMode mode : snapshot.getGameModes().values()) {
+                int slot = mode.getSlot();
+                if (slot < 0 || slot >= SIZE || slot == LEAVE_SLOT || slotModes[slot] != null) {
+                    logger.warning("Game mode " + mode.getKey() + " has an invalid or taken menu slot " + slot);
+                    continue;
                 }
-                
-                player.closeInventory();
-                return;
+                slotModes[slot] = mode;
+                IconTemplate icon = new IconTemplate(mode);
+                icons.add(icon);
+                iconsByMode.put(mode.getKey(), icon);
+            }
+
+            this.leaveItem = new ItemStack(Material.BARRIER);
+            ItemMeta meta = leaveItem.getItemMeta();
+            meta.setDisplayName("§c§lLeave Queue");
+            List<String> lore = new ArrayList<>();
+            lore.add("§7");
+            lore.add("§7Click to leave the queue");
+            meta.setLore(lore);
+            leaveItem.setItemMeta(meta);
+        }
+
+        IconTemplate getIcon(String gameMode) {
+            return iconsByMode.get(gameMode);
+        }
+    }
+
+    /**
+     * Icon of one game mode. The last rendered icon is kept, so opening the menu
+     * while the queue size is unchanged reuses it (the inventory copies it anyway).
+     */
+    private static class IconTemplate {
+        private final GameMode mode;
+        private final int slot;
+        private final ItemStack base;
+        private final List<String> baseLore;
+        private int renderedQueueSize = -1;
+        private ItemStack rendered;
+
+        IconTemplate(GameMode mode) {
+            this.mode = mode;
+            this.slot = mode.getSlot();
+            this.base = new ItemStack(mode.getIcon());
+
+            List<String> lore = new ArrayList<>();
+            lore.add("§7");
+            lore.add("§7Click to join queue");
+            if (mode.getTeamSize() > 1) {
+                lore.add("§7Teams: §e" + mode.getTeamSize() + "v" + mode.getTeamSize());
+            }
+            this.baseLore = Collections.unmodifiableList(lore);
+
+            ItemMeta meta = base.getItemMeta();
+            meta.setDisplayName(mode.getDisplayName());
+            meta.setLore(baseLore);
+            base.setItemMeta(meta);
+        }
+
+        ItemStack render(int queueSize) {
+            if (queueSize != renderedQueueSize) {
+                ItemStack item = base.clone();
+                ItemMeta meta = item.getItemMeta();
+                List<String> lore = new ArrayList<>(baseLore.size() + 1);
+                lore.addAll(baseLore);
+                lore.add("§7In queue: §e" + queueSize);
+                meta.setLore(lore);
+                item.setItemMeta(meta);
+
+                rendered = item;
+                renderedQueueSize = queueSize;
             }
+            return rendered;
         }
     }
 }
@@ -0,0 +1,47 @@
+package com.pvparena.gui;
+
+import com.pvparena.models.GameMode;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * Holder of an open game mode menu. Click handling identifies the menu by its
+ * holder and looks the clicked game mode up by slot.
+ */
+public class GameModeMenu implements InventoryHolder {
+
+    private final GameMode[] slotModes; // Shared with the menu template, never modified
+    private final int[] shownQueueSizes; // Queue count currently displayed per slot
+    private Inventory inventory;
+
+    GameModeMenu(GameMode[] slotModes) {
+        this.slotModes = slotModes;
+        this.shownQueueSizes = new int[slotModes.length];
+    }
+
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    int getShownQueueSize(int slot) {
+        return shownQueueSizes[slot];
+    }
+
+    void setShownQueueSize(int slot, int queueSize) {
+        shownQueueSizes[slot] = queueSize;
+    }
+
+    /**
+     * Get the game mode shown in a slot
+     * @param slot Raw slot of the menu
+     * @return The game mode, or null if the slot holds none
+     */
+    public GameMode getGameMode(int slot) {
+        return slot >= 0 && slot < slotModes.length ? slotModes[slot] : null;
+    }
+}
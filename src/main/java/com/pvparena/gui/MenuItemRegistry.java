@@ -0,0 +1,77 @@
+package com.pvparena.gui;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Items that do something when used, such as the arena compass. Each item is
+ * marked with its id in its persistent data, so recognising one is a single
+ * lookup that survives renames and config changes.
+ */
+public class MenuItemRegistry {
+
+    private final NamespacedKey key;
+    private final Map<String, Consumer<Player>> handlers;
+
+    public MenuItemRegistry(Plugin plugin) {
+        this.key = new NamespacedKey(plugin, "menu-item");
+        this.handlers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Register the action of a menu item
+     * @param id Item id stored on the item
+     * @param handler Runs when a player uses the item
+     */
+    public void register(String id, Consumer<Player> handler) {
+        handlers.put(id, handler);
+    }
+
+    public void unregister(String id) {
+        handlers.remove(id);
+    }
+
+    /**
+     * Mark item meta as a menu item. Call before setting the meta on the item.
+     */
+    public void tag(ItemMeta meta, String id) {
+        meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, id);
+    }
+
+    /**
+     * Get the menu item id of an item
+     * @return The id, or null if the item is not a menu item
+     */
+    public String getId(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) {
+            return null;
+        }
+        return getId(item.getItemMeta());
+    }
+
+    public String getId(ItemMeta meta) {
+        return meta.getPersistentDataContainer().get(key, PersistentDataType.STRING);
+    }
+
+    /**
+     * Run the action of a menu item
+     * @param id Menu item id, may be null
+     * @return true if a registered item was used
+     */
+    public boolean use(Player player, String id) {
+        Consumer<Player> handler = id != null ? handlers.get(id) : null;
+        if (handler == null) {
+            return false;
+        }
+        handler.accept(player);
+        return true;
+    }
+}
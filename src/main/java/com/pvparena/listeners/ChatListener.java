@@ -1,11 +1,18 @@
 package com.pvparena.listeners;
 
 import com.pvparena.PVPArenaPlugin;
+import com.pvparena.managers.ChatManager;
+import com.pvparena.managers.ConfigSnapshot;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Set;
 
 public class ChatListener implements Listener {
 
@@ -15,13 +22,47 @@ public class ChatListener implements Listener {
         this.plugin = plugin;
     }
 
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        plugin.getChatManager().handleJoin(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        plugin.getChatManager().handleWorldChange(event.getPlayer());
+    }
+
+    // Runs after the queue and match cleanup of PlayerQuitListener
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getChatManager().handleQuit(event.getPlayer());
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerChat(AsyncPlayerChatEvent event) {
         Player sender = event.getPlayer();
-        String senderWorld = sender.getWorld().getName();
-        
-        // Remove players from different worlds
-        event.getRecipients().removeIf(recipient -> 
-            !recipient.getWorld().getName().equals(senderWorld));
+        ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
+        ChatManager chat = plugin.getChatManager();
+
+        ChatManager.Channel channel = config.isChatChannelsEnabled()
+                ? chat.getActiveChannel(sender)
+                : ChatManager.Channel.WORLD;
+        if (channel == ChatManager.Channel.WORLD && !config.isPerWorldChat()) {
+            return;
+        }
+
+        Set<Player> members = chat.getMembers(sender, channel);
+        if (members == null) {
+            return;
+        }
+
+        // Only players in the sender's channel receive the message; recipients
+        // other plugins already removed stay removed
+        event.getRecipients().removeIf(recipient -> recipient != sender && !members.contains(recipient));
+
+        String prefix = config.getChatPrefix(channel);
+        if (!prefix.isEmpty()) {
+            event.setFormat(prefix + event.getFormat());
+        }
     }
 }
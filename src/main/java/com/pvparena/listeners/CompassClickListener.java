@@ -2,14 +2,19 @@ package com.pvparena.listeners;
 
 import com.pvparena.PVPArenaPlugin;
 import com.pvparena.gui.GameModeGUI;
+import com.pvparena.gui.GameModeMenu;
+import com.pvparena.gui.MenuItemRegistry;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class CompassClickListener implements Listener {
 
@@ -18,7 +23,7 @@ public class CompassClickListener implements Listener {
 
     public CompassClickListener(PVPArenaPlugin plugin) {
         this.plugin = plugin;
-        this.gui = new GameModeGUI(plugin);
+        this.gui = plugin.getGameModeGUI();
     }
 
     @EventHandler
@@ -27,21 +32,25 @@ public class CompassClickListener implements Listener {
             return;
         }
 
-        Player player = event.getPlayer();
         ItemStack item = event.getItem();
-
-        if (item == null || item.getType() != Material.COMPASS) {
+        if (item == null || !item.hasItemMeta()) {
             return;
         }
 
-        if (!item.hasItemMeta() || !item.getItemMeta().hasDisplayName()) {
-            return;
+        MenuItemRegistry registry = plugin.getMenuItemRegistry();
+        ItemMeta meta = item.getItemMeta();
+        String id = registry.getId(meta);
+
+        // Compasses handed out before items were tagged are recognised by name once and tagged
+        if (id == null && item.getType() == Material.COMPASS && meta.hasDisplayName()
+                && meta.getDisplayName().equals(plugin.getConfigManager().getCompassName())) {
+            id = PVPArenaPlugin.COMPASS_ITEM_ID;
+            registry.tag(meta, id);
+            item.setItemMeta(meta);
         }
 
-        String compassName = plugin.getConfigManager().getCompassName();
-        if (item.getItemMeta().getDisplayName().equals(compassName)) {
+        if (registry.use(event.getPlayer(), id)) {
             event.setCancelled(true);
-            gui.openGUI(player);
         }
     }
 
@@ -51,13 +60,23 @@ public class CompassClickListener implements Listener {
             return;
         }
 
-        if (event.getView().getTitle().equals("§c§lSelect Game Mode")) {
-            event.setCancelled(true);
-            
-            ItemStack clickedItem = event.getCurrentItem();
-            Player player = (Player) event.getWhoClicked();
-            
-            gui.handleClick(player, clickedItem);
+        // The top inventory of the view decides, clicks in the player inventory are blocked too
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (!(holder instanceof GameModeMenu)) {
+            return;
+        }
+        event.setCancelled(true);
+
+        if (event.getRawSlot() < event.getInventory().getSize()) {
+            gui.handleClick((Player) event.getWhoClicked(), (GameModeMenu) holder, event.getRawSlot());
+        }
+    }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof GameModeMenu && event.getPlayer() instanceof Player) {
+            gui.handleClose((Player) event.getPlayer(), (GameModeMenu) holder);
         }
     }
 }
@@ -25,5 +25,8 @@ public class PlayerQuitListener implements Listener {
         if (plugin.getMatchManager().isInMatch(player)) {
             plugin.getMatchManager().handlePlayerQuit(player);
         }
+
+        // Leave party if in party
+        plugin.getPartyManager().leave(player);
     }
 }
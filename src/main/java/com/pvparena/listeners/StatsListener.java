@@ -0,0 +1,28 @@
+package com.pvparena.listeners;
+
+import com.pvparena.PVPArenaPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class StatsListener implements Listener {
+
+    private final PVPArenaPlugin plugin;
+
+    public StatsListener(PVPArenaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        plugin.getStatsManager().handleJoin(event.getPlayer());
+    }
+
+    // Runs after PlayerQuitListener, so a match lost by quitting still updates the cached stats
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getStatsManager().handleQuit(event.getPlayer());
+    }
+}
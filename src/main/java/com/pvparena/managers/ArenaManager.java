@@ -1,135 +1,827 @@
 package com.pvparena.managers;
 
 import com.pvparena.models.Arena;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.Bisected;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.type.Bed;
+import org.bukkit.block.data.type.Stairs;
+import org.bukkit.block.data.type.TrapDoor;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.io.File;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * ArenaManager that uses WorldEdit schematics instead of block-by-block building
  * Compatible with existing Arena model
+ *
+ * All arena bookkeeping lives in the thread-safe {@link ArenaRegistry} and
+ * {@link SlotAllocator}, so arenas can be allocated and released from async
+ * paste workers as well as from the main thread.
  */
 public class ArenaManager {
 
+    // Extra blocks around the schematic footprint searched for leftover entities
+    private static final int ENTITY_CLEAR_MARGIN = 16;
+
+    // Blocks recorded around every changed block
+    private static final BlockFace[] NEIGHBOURS = {
+            BlockFace.UP, BlockFace.DOWN, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
+    };
+
+    // Paper's World#getChunkAtAsync, or null on servers that only load chunks synchronously
+    private static final Method GET_CHUNK_AT_ASYNC = findGetChunkAtAsync();
+
     private final Plugin plugin;
+    private final ConfigManager configManager;
     private final SchematicManager schematicManager;
+    private final PasteManager pasteManager;
+    private final TimingWheel timingWheel;
     private final World pvpWorld;
-    private final int arenaSpacing;
-    private final Set<ArenaCoordinate> usedCoordinates;
-    private final Map<ArenaCoordinate, Long> coordinateCooldowns;
-    private final Map<Arena, ArenaCoordinate> arenaCoordinateMap;
-    private final Map<Arena, Location[]> arenaSpawnPoints; // Store spawn points per arena
-    private final long cleanupDelay;
-
-    public ArenaManager(Plugin plugin, SchematicManager schematicManager, World pvpWorld) {
+    private final SlotAllocator slotAllocator;
+    private final ArenaRegistry registry;
+    private final SlotJournal journal; // null if persisting slots is disabled
+    private volatile long cleanupDelay;
+
+    // Differential reset settings
+    private volatile boolean resetEnabled;
+    private volatile int maxTrackedBlocks;
+    private volatile int resetSettleTicks;
+    private volatile int resetMaxPasses;
+    private final AtomicInteger resettingArenas;
+
+    // Pre-pasted arenas ready to be handed out, per game mode
+    private final Map<String, Deque<ArenaRegistry.Entry>> arenaPool;
+    private final Map<String, AtomicInteger> poolPending; // Pool pastes in flight per game mode
+    private final Map<String, AtomicInteger> poolSchematicCursor; // Round-robin schematic index per game mode
+    private volatile Map<String, int[]> poolLimits; // {min, max} per game mode, replaced on reload
+    private volatile boolean poolEnabled;
+    private volatile int poolMaxConcurrentPastes;
+    private final AtomicInteger pendingPastes;
+
+    // Chunk pre-loading settings
+    private volatile boolean chunkPreloadEnabled;
+    private volatile int chunkPreloadRadius; // Blocks around a slot center whose chunks are pinned
+
+    private final MetricsRegistry.Histogram allocationTime;
+    private final MetricsRegistry.Histogram resetTime;
+    private final MetricsRegistry.Histogram refillTickTime;
+    private final MetricsRegistry.Counter poolHits;
+    private final MetricsRegistry.Counter poolMisses;
+
+    public ArenaManager(Plugin plugin, ConfigManager configManager, SchematicManager schematicManager,
+                        PasteManager pasteManager, TimingWheel timingWheel, MetricsRegistry metrics, World pvpWorld) {
         this.plugin = plugin;
+        this.configManager = configManager;
         this.schematicManager = schematicManager;
+        this.pasteManager = pasteManager;
+        this.timingWheel = timingWheel;
         this.pvpWorld = pvpWorld;
-        this.usedCoordinates = new HashSet<>();
-        this.coordinateCooldowns = new HashMap<>();
-        this.arenaCoordinateMap = new HashMap<>();
-        this.arenaSpawnPoints = new HashMap<>();
+        this.registry = new ArenaRegistry();
+        this.resettingArenas = new AtomicInteger();
+        this.arenaPool = new ConcurrentHashMap<>();
+        this.poolPending = new ConcurrentHashMap<>();
+        this.poolSchematicCursor = new ConcurrentHashMap<>();
+        this.poolLimits = Collections.emptyMap();
+        this.pendingPastes = new AtomicInteger();
+
+        this.allocationTime = metrics.histogram("arena_allocation_seconds", "Time from an arena request until the arena is ready");
+        this.resetTime = metrics.histogram("arena_reset_seconds", "Time spent restoring an arena in place");
+        this.refillTickTime = metrics.histogram("main_thread_tick_seconds{subsystem=\"arena_pool\"}",
+                "Main thread time spent per tick by a subsystem");
+        this.poolHits = metrics.counter("arena_pool_hits_total", "Arenas handed out from the pool");
+        this.poolMisses = metrics.counter("arena_pool_misses_total", "Arenas pasted on demand because the pool was empty");
+        metrics.gauge("arenas_active", "Arenas hosting a match", this::getActiveArenaCount);
+        metrics.gauge("arenas_pooled", "Pre-pasted arenas waiting in the pool", this::getPooledArenaCount);
+        metrics.gauge("arenas_resetting", "Arenas being restored in place", this::getResettingArenaCount);
 
         // Load config values
-        this.arenaSpacing = plugin.getConfig().getInt("arena-spacing", 1000);
-        this.cleanupDelay = plugin.getConfig().getInt("arena-cleanup-delay", 30) * 1000L;
+        this.slotAllocator = new SlotAllocator(calculateCellSize(), plugin.getConfig().getInt("arena-grid.max-slots", 0));
+        loadPoolSettings();
+        loadResetSettings();
+        loadChunkSettings();
+
+        this.journal = plugin.getConfig().getBoolean("slot-journal.enabled", true) && pvpWorld != null
+                ? new SlotJournal(plugin, new File(plugin.getDataFolder(), "slots.journal"))
+                : null;
+        recoverSlots();
+
+        int refillInterval = Math.max(1, plugin.getConfig().getInt("arena-pool.refill-interval", 20));
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this::refillPool, refillInterval, refillInterval);
 
         plugin.getLogger().info("ArenaManager initialized with schematic support");
-        plugin.getLogger().info("Arena spacing: " + arenaSpacing + " blocks");
+        plugin.getLogger().info("Arena spacing: " + slotAllocator.getCellSize() + " blocks");
+    }
+
+    /**
+     * Work out the distance between arena centers. When packing by footprint the
+     * grid is sized to the largest schematic plus padding (rounded up to whole
+     * chunks), otherwise the fixed arena-spacing is used.
+     */
+    private int calculateCellSize() {
+        int arenaSpacing = configManager.getSnapshot().getArenaSpacing();
+        if (!plugin.getConfig().getBoolean("arena-grid.pack-by-footprint", true)) {
+            return arenaSpacing;
+        }
+
+        int footprint = schematicManager.getMaxFootprint();
+        if (footprint <= 0) {
+            return arenaSpacing;
+        }
+
+        int padding = Math.max(0, plugin.getConfig().getInt("arena-grid.padding", 32));
+        int cellSize = footprint + 2 * padding;
+        return (cellSize + 15) / 16 * 16;
+    }
+
+    /**
+     * Replay the slot journal of the previous run. Slots still allocated when the
+     * server stopped hold orphaned arenas; they stay reserved while their region is
+     * cleared in tick-budgeted slices and are released afterwards. Clearing runs in
+     * the background of the paste pipeline, so it never delays a match.
+     */
+    private void recoverSlots() {
+        if (journal == null) {
+            return;
+        }
+
+        SlotJournal.Replay replay = journal.replay();
+        Map<Integer, SlotJournal.SlotRecord> kept = new TreeMap<>();
+        Map<Integer, SlotJournal.SlotRecord> orphans = new TreeMap<>();
+        List<int[]> staleRegions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        if (replay.getCellSize() == slotAllocator.getCellSize()) {
+            Set<Integer> inUse = new HashSet<>();
+            Map<Integer, Long> cooling = new HashMap<>();
+            int freshSlots = 0;
+
+            for (Map.Entry<Integer, SlotJournal.SlotRecord> entry : replay.getSlots().entrySet()) {
+                int slot = entry.getKey();
+                SlotJournal.SlotRecord record = entry.getValue();
+                freshSlots = Math.max(freshSlots, slot + 1);
+                kept.put(slot, record);
+
+                if (!record.isReleased()) {
+                    inUse.add(slot);
+                    orphans.put(slot, record);
+                } else if (record.getReadyAt() > now) {
+                    cooling.put(slot, record.getReadyAt());
+                }
+            }
+            slotAllocator.restore(freshSlots, inUse, cooling);
+        } else {
+            // The grid was resized, old arenas no longer line up with any slot so all of them are cleared
+            for (SlotJournal.SlotRecord record : replay.getSlots().values()) {
+                if (record.getRegion() != null) {
+                    staleRegions.add(record.getRegion());
+                }
+            }
+        }
+
+        journal.open(slotAllocator.getCellSize(), kept, plugin.getConfig().getLong("slot-journal.flush-interval", 20));
+
+        if (orphans.isEmpty() && staleRegions.isEmpty()) {
+            return;
+        }
+        plugin.getLogger().info("Clearing " + (orphans.size() + staleRegions.size()) + " arena(s) left over from the last run");
+
+        for (Map.Entry<Integer, SlotJournal.SlotRecord> entry : orphans.entrySet()) {
+            int slot = entry.getKey();
+            int[] region = entry.getValue().getRegion();
+            // The region is journaled before pasting, without one no block was written
+            CompletableFuture<Void> cleared = region != null
+                    ? pasteManager.submitBackground(new PasteManager.RegionClearJob(pvpWorld, region))
+                    : CompletableFuture.completedFuture(null);
+            cleared.whenComplete((ignored, error) -> {
+                long releasedAt = System.currentTimeMillis();
+                journal.release(slot, releasedAt);
+                slotAllocator.release(slot, releasedAt);
+            });
+        }
+        for (int[] region : staleRegions) {
+            pasteManager.submitBackground(new PasteManager.RegionClearJob(pvpWorld, region));
+        }
+    }
+
+    /**
+     * Flush the slot journal and close it
+     */
+    public void shutdown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Read the arena pool settings from the config. Pooled arenas of game modes
+     * that no longer exist are released.
+     */
+    public void loadPoolSettings() {
+        ConfigSnapshot config = configManager.getSnapshot();
+        this.poolEnabled = config.isPoolEnabled();
+        this.poolMaxConcurrentPastes = config.getPoolMaxConcurrentPastes();
+        Map<String, int[]> limits = config.getPoolLimits();
+        this.poolLimits = limits;
+
+        // Release pooled arenas that are disabled or above the new limits
+        for (Map.Entry<String, Deque<ArenaRegistry.Entry>> entry : arenaPool.entrySet()) {
+            int[] modeLimits = limits.get(entry.getKey());
+            int max = poolEnabled && modeLimits != null ? modeLimits[1] : 0;
+            while (entry.getValue().size() > max) {
+                ArenaRegistry.Entry pooled = entry.getValue().pollLast();
+                if (pooled == null) {
+                    break;
+                }
+                deleteArena(pooled.getArena());
+            }
+        }
+    }
+
+    /**
+     * Warn when a schematic no longer fits the arena grid (the grid is only sized on startup)
+     */
+    public void checkGridFits() {
+        int footprint = schematicManager.getMaxFootprint();
+        if (footprint > slotAllocator.getCellSize()) {
+            plugin.getLogger().warning("Largest schematic (" + footprint + " blocks) is bigger than the arena grid (" +
+                    slotAllocator.getCellSize() + " blocks), restart the server to resize the grid");
+        }
+    }
+
+    /**
+     * Read the differential reset and cleanup delay settings from the config
+     */
+    public void loadResetSettings() {
+        ConfigSnapshot config = configManager.getSnapshot();
+        this.cleanupDelay = Math.max(0, config.getArenaCleanupDelay()) * 1000L;
+        this.resetEnabled = config.isResetEnabled();
+        this.maxTrackedBlocks = config.getMaxTrackedBlocks();
+        this.resetSettleTicks = config.getResetSettleTicks();
+        this.resetMaxPasses = config.getResetMaxPasses();
+    }
+
+    /**
+     * Read the chunk pre-loading settings from the config. The pinned area covers
+     * the largest schematic plus a margin, but never reaches into neighbouring slots.
+     */
+    public void loadChunkSettings() {
+        ConfigSnapshot config = configManager.getSnapshot();
+        this.chunkPreloadEnabled = config.isChunkPreloadEnabled();
+
+        int radius = schematicManager.getMaxFootprint() / 2 + config.getChunkMargin();
+        this.chunkPreloadRadius = Math.min(radius, slotAllocator.getCellSize() / 2);
     }
 
     /**
      * Create a new arena using a random schematic
      * @param gameMode The game mode for this arena
-     * @return Arena object with spawn points, or null on failure
+     * @return Future completed on the main thread with the arena, or null on failure
      */
-    public Arena createArena(String gameMode) {
+    public CompletableFuture<Arena> createArena(String gameMode) {
         return createArena(null, gameMode);
     }
 
     /**
-     * Create a new arena using a specific schematic
+     * Create a new arena using a specific schematic. A pre-pasted arena from the
+     * pool is handed out when one is available; otherwise the coordinates are
+     * reserved immediately while the schematic is pasted over the following ticks.
      * @param schematicName Name of the schematic to use (null for random)
      * @param gameMode The game mode for this arena
-     * @return Arena object with spawn points, or null on failure
+     * @return Future completed on the main thread with the arena, or null on failure
      */
-    public Arena createArena(String schematicName, String gameMode) {
+    public CompletableFuture<Arena> createArena(String schematicName, String gameMode) {
+        long start = System.nanoTime();
+        ArenaRegistry.Entry pooled = takeFromPool(schematicName, gameMode);
+        if (pooled != null) {
+            poolHits.increment();
+            allocationTime.recordSince(start);
+            return CompletableFuture.completedFuture(pooled.getArena());
+        }
+
+        if (!canCreateArena()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        poolMisses.increment();
+
+        File schematic = schematicName != null
+                ? schematicManager.getSchematic(schematicName)
+                : schematicManager.getRandomSchematic();
+
+        return pasteArena(schematic, gameMode, ArenaRegistry.State.IN_USE)
+                .thenApply(entry -> {
+                    if (entry == null) {
+                        return null;
+                    }
+                    allocationTime.recordSince(start);
+                    return entry.getArena();
+                });
+    }
+
+    private boolean canCreateArena() {
         if (!schematicManager.isWorldEditAvailable()) {
             plugin.getLogger().severe("WorldEdit is not installed! Cannot create arenas.");
-            return null;
+            return false;
         }
 
         if (schematicManager.getSchematicCount() == 0) {
             plugin.getLogger().warning("No schematics available! Add .schem files to plugins/" +
                     plugin.getName() + "/arenas/");
-            return null;
+            return false;
         }
 
         if (pvpWorld == null) {
             plugin.getLogger().warning("PVP world is not available! Cannot create arena.");
-            return null;
+            return false;
         }
 
-        ArenaCoordinate coordinates = findAvailableCoordinates();
-        if (coordinates == null) {
+        return true;
+    }
+
+    /**
+     * Reserve a slot and paste a schematic there
+     * @param state State the arena is registered with once pasted
+     */
+    private CompletableFuture<ArenaRegistry.Entry> pasteArena(File schematic, String gameMode, ArenaRegistry.State state) {
+        int slot = slotAllocator.allocate(System.currentTimeMillis());
+        if (slot < 0) {
             plugin.getLogger().warning("Could not find available coordinates for arena");
-            return null;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int centerX = slotAllocator.getCenterX(slot);
+        int centerZ = slotAllocator.getCenterZ(slot);
+        String coordinates = "(" + centerX + ", " + centerZ + ")";
+        pendingPastes.incrementAndGet();
+        if (journal != null) {
+            journal.allocate(slot, centerX, centerZ);
         }
 
         Location pasteLocation = new Location(
                 pvpWorld,
-                coordinates.getX(),
+                centerX,
                 64,
-                coordinates.getZ()
+                centerZ
         );
 
-        SchematicManager.SchematicDimensions dimensions;
-        if (schematicName != null) {
-            java.io.File schematic = schematicManager.getSchematic(schematicName);
-            dimensions = schematicManager.pasteSchematic(schematic, pasteLocation);
-        } else {
-            dimensions = schematicManager.pasteRandomSchematic(pasteLocation);
+        // Journal the region before its first block is written, so a crash mid-paste only sweeps that box
+        Consumer<SchematicManager.SchematicDimensions> journalRegion = journal == null ? null : pasted -> {
+            BlockVector3 min = pasted.getMinimumPoint();
+            BlockVector3 max = pasted.getMaximumPoint();
+            journal.region(slot, new int[]{min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ()});
+            journal.flush();
+        };
+
+        // Load and pin the chunks first so neither the paste nor the teleport hits cold chunks
+        long[] chunks = getChunkKeys(centerX, centerZ);
+        return loadChunks(chunks).thenCompose(ignored -> schematicManager.pasteSchematic(schematic, pasteLocation, journalRegion)).thenApply(dimensions -> {
+            pendingPastes.decrementAndGet();
+
+            if (dimensions == null) {
+                plugin.getLogger().warning("Failed to paste schematic at coordinates: " + coordinates);
+                releaseChunks(chunks);
+                if (journal != null) {
+                    journal.release(slot, System.currentTimeMillis());
+                }
+                slotAllocator.release(slot, System.currentTimeMillis());
+                return null;
+            }
+
+            // Calculate spawn points - FIXED for 30x30 arena
+            Location[] spawnPoints = calculateSpawnPoints(pasteLocation, dimensions);
+
+            plugin.getLogger().info("Created arena at " + coordinates +
+                    " (dimensions: " + dimensions.getWidth() + "x" + dimensions.getHeight() + "x" + dimensions.getLength() + ")");
+            plugin.getLogger().info("Spawn 1: " + spawnPoints[0].getBlockX() + ", " + spawnPoints[0].getBlockY() + ", " + spawnPoints[0].getBlockZ());
+            plugin.getLogger().info("Spawn 2: " + spawnPoints[1].getBlockX() + ", " + spawnPoints[1].getBlockY() + ", " + spawnPoints[1].getBlockZ());
+
+            Location centerLocation = spawnPoints[0].clone().add(
+                    (spawnPoints[1].getX() - spawnPoints[0].getX()) / 2,
+                    0,
+                    (spawnPoints[1].getZ() - spawnPoints[0].getZ()) / 2
+            );
+
+            UUID arenaId = UUID.randomUUID();
+            String arenaGameMode = gameMode != null ? gameMode : "default";
+            Arena arena = new Arena(arenaId, centerLocation, arenaGameMode);
+
+            return registry.register(arena, slot, cellKey(centerX, centerZ), centerX, centerZ,
+                    spawnPoints, schematic, dimensions, chunks, state);
+        });
+    }
+
+    /**
+     * Get the packed coordinates of every chunk pinned for a slot
+     * @return Chunk keys, empty if pre-loading is disabled
+     */
+    private long[] getChunkKeys(int centerX, int centerZ) {
+        if (!chunkPreloadEnabled) {
+            return new long[0];
+        }
+
+        int radius = chunkPreloadRadius;
+        int minX = (centerX - radius) >> 4;
+        int maxX = (centerX + radius) >> 4;
+        int minZ = (centerZ - radius) >> 4;
+        int maxZ = (centerZ + radius) >> 4;
+
+        long[] chunks = new long[(maxX - minX + 1) * (maxZ - minZ + 1)];
+        int index = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                chunks[index++] = chunkKey(x, z);
+            }
+        }
+        return chunks;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Load the given chunks, asynchronously on servers that support it, and add a
+     * plugin ticket to each so they stay loaded until the arena is deleted
+     * @return Future completed on the main thread once every chunk is loaded and pinned
+     */
+    private CompletableFuture<Void> loadChunks(long[] chunks) {
+        if (chunks.length == 0) {
+            return CompletableFuture.completedFuture(null);
         }
 
-        if (dimensions == null) {
-            plugin.getLogger().warning("Failed to paste schematic at coordinates: " + coordinates);
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[GET_CHUNK_AT_ASYNC != null ? chunks.length : 0];
+        if (GET_CHUNK_AT_ASYNC != null) {
+            for (int i = 0; i < chunks.length; i++) {
+                loads[i] = loadChunkAsync((int) (chunks[i] >> 32), (int) chunks[i]);
+            }
+        }
+
+        CompletableFuture<Void> pinned = new CompletableFuture<>();
+        CompletableFuture.allOf(loads).whenComplete((ignored, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Failed to pre-load arena chunks", error);
+            }
+
+            // Async loads complete on the main thread; adding the ticket also loads any chunk that is still cold
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                for (long chunk : chunks) {
+                    pvpWorld.addPluginChunkTicket((int) (chunk >> 32), (int) chunk, plugin);
+                }
+                pinned.complete(null);
+            });
+        });
+        return pinned;
+    }
+
+    private CompletableFuture<?> loadChunkAsync(int chunkX, int chunkZ) {
+        try {
+            return (CompletableFuture<?>) GET_CHUNK_AT_ASYNC.invoke(pvpWorld, chunkX, chunkZ);
+        } catch (ReflectiveOperationException e) {
+            CompletableFuture<Chunk> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Remove the plugin tickets from the given chunks so the server may unload them
+     */
+    private void releaseChunks(long[] chunks) {
+        if (chunks.length == 0) {
+            return;
+        }
+
+        if (!plugin.getServer().isPrimaryThread()) {
+            plugin.getServer().getScheduler().runTask(plugin, () -> releaseChunks(chunks));
+            return;
+        }
+
+        for (long chunk : chunks) {
+            pvpWorld.removePluginChunkTicket((int) (chunk >> 32), (int) chunk, plugin);
+        }
+    }
+
+    private static Method findGetChunkAtAsync() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
             return null;
         }
+    }
 
-        usedCoordinates.add(coordinates);
+    /**
+     * Take a ready arena from the pool
+     * @param schematicName Required schematic, or null for any
+     * @param gameMode The game mode
+     * @return Pooled arena, or null if none matches
+     */
+    private ArenaRegistry.Entry takeFromPool(String schematicName, String gameMode) {
+        Deque<ArenaRegistry.Entry> pool = arenaPool.get(gameMode);
+        if (pool == null) {
+            return null;
+        }
 
-        // Calculate spawn points - FIXED for 30x30 arena
-        Location[] spawnPoints = calculateSpawnPoints(pasteLocation, dimensions);
+        if (schematicName == null) {
+            ArenaRegistry.Entry entry;
+            while ((entry = pool.pollFirst()) != null) {
+                // The state change decides ownership if a reload releases the same arena concurrently
+                if (entry.transition(ArenaRegistry.State.POOLED, ArenaRegistry.State.IN_USE)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
 
-        plugin.getLogger().info("Created arena at " + coordinates +
-                " (dimensions: " + dimensions.getWidth() + "x" + dimensions.getHeight() + "x" + dimensions.getLength() + ")");
-        plugin.getLogger().info("Spawn 1: " + spawnPoints[0].getBlockX() + ", " + spawnPoints[0].getBlockY() + ", " + spawnPoints[0].getBlockZ());
-        plugin.getLogger().info("Spawn 2: " + spawnPoints[1].getBlockX() + ", " + spawnPoints[1].getBlockY() + ", " + spawnPoints[1].getBlockZ());
+        File schematic = schematicManager.getSchematic(schematicName);
+        for (ArenaRegistry.Entry entry : pool) {
+            if (entry.getSchematic().equals(schematic) && pool.remove(entry)
+                    && entry.transition(ArenaRegistry.State.POOLED, ArenaRegistry.State.IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
 
-        Location centerLocation = spawnPoints[0].clone().add(
-                (spawnPoints[1].getX() - spawnPoints[0].getX()) / 2,
-                0,
-                (spawnPoints[1].getZ() - spawnPoints[0].getZ()) / 2
-        );
+    /**
+     * Top up the arena pools. Every game mode is filled up to its minimum while the
+     * paste pipeline has spare capacity, and up to its maximum only when it is idle.
+     */
+    private void refillPool() {
+        if (!poolEnabled || !canRefillPool()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (Map.Entry<String, int[]> entry : poolLimits.entrySet()) {
+            String gameMode = entry.getKey();
+            int target = pendingPastes.get() == 0 ? entry.getValue()[1] : entry.getValue()[0];
+            int available = getPool(gameMode).size() + getPoolPending(gameMode).get();
+
+            if (available < target && pendingPastes.get() < poolMaxConcurrentPastes) {
+                pastePooledArena(gameMode);
+            }
+        }
+        refillTickTime.recordSince(start);
+    }
+
+    private boolean canRefillPool() {
+        return pvpWorld != null && schematicManager.getSchematicCount() > 0 && schematicManager.isWorldEditAvailable();
+    }
+
+    private void pastePooledArena(String gameMode) {
+        // Cycle through the schematics so every one of them is represented in the pool
+        List<File> schematics = schematicManager.getSchematicFiles();
+        int cursor = Math.floorMod(poolSchematicCursor.computeIfAbsent(gameMode, k -> new AtomicInteger())
+                .getAndIncrement(), schematics.size());
+
+        AtomicInteger pending = getPoolPending(gameMode);
+        pending.incrementAndGet();
+        pasteArena(schematics.get(cursor), gameMode, ArenaRegistry.State.POOLED).thenAccept(entry -> {
+            pending.decrementAndGet();
+            if (entry != null) {
+                returnToPool(entry);
+            }
+        });
+    }
+
+    private Deque<ArenaRegistry.Entry> getPool(String gameMode) {
+        return arenaPool.computeIfAbsent(gameMode, k -> new ConcurrentLinkedDeque<>());
+    }
+
+    private AtomicInteger getPoolPending(String gameMode) {
+        return poolPending.computeIfAbsent(gameMode, k -> new AtomicInteger());
+    }
+
+    /**
+     * Put a clean arena (in the POOLED state) back into the pool of its game mode,
+     * or delete it if the pool is full
+     */
+    private void returnToPool(ArenaRegistry.Entry entry) {
+        String gameMode = entry.getArena().getGameMode();
+        int[] limits = poolLimits.get(gameMode);
+        Deque<ArenaRegistry.Entry> pool = getPool(gameMode);
+        if (!poolEnabled || limits == null || pool.size() >= limits[1]) {
+            deleteArena(entry.getArena());
+            return;
+        }
+        pool.addLast(entry);
+    }
+
+    /**
+     * Remember the current state of a block inside an arena before it changes
+     * @param block The block about to change
+     */
+    public void recordBlockChange(Block block) {
+        recordBlockChange(block, block.getBlockData());
+    }
+
+    /**
+     * Remember the state of a block inside an arena before it changes, so the
+     * arena can later be reset by restoring only the changed blocks. Its six
+     * neighbours are remembered too, as torches, carpets, signs, crops and
+     * other attached blocks break along with the block they rest on.
+     * @param block The block about to change
+     * @param original The block data before the change
+     */
+    public void recordBlockChange(Block block, BlockData original) {
+        ArenaRegistry.ArenaChanges changes = getChanges(block);
+        if (changes == null) {
+            return;
+        }
+
+        record(changes, block, original);
+        for (BlockFace face : NEIGHBOURS) {
+            Block neighbour = block.getRelative(face);
+            record(changes, neighbour, neighbour.getBlockData());
+        }
+    }
+
+    /**
+     * Remember the current state of a block inside an arena that is about to
+     * be updated by physics, without its neighbours. Physics updates spread one
+     * block at a time, so every block they reach is recorded before it changes.
+     * @param block The block receiving the update
+     */
+    public void recordBlockUpdate(Block block) {
+        ArenaRegistry.ArenaChanges changes = getChanges(block);
+        if (changes != null) {
+            record(changes, block, block.getBlockData());
+        }
+    }
+
+    private void record(ArenaRegistry.ArenaChanges changes, Block block, BlockData original) {
+        changes.record(PasteManager.packPosition(block.getX(), block.getY(), block.getZ()), original, maxTrackedBlocks);
+
+        // Doors, beds and tall plants break as a whole, the other half is outside the neighbourhood
+        Block otherHalf = getOtherHalf(block, original);
+        if (otherHalf != null) {
+            changes.record(PasteManager.packPosition(otherHalf.getX(), otherHalf.getY(), otherHalf.getZ()),
+                    otherHalf.getBlockData(), maxTrackedBlocks);
+        }
+    }
+
+    /**
+     * Find the second block of a two block structure
+     * @return The other half, or null if the block stands on its own
+     */
+    private static Block getOtherHalf(Block block, BlockData data) {
+        if (data instanceof Bed) {
+            Bed bed = (Bed) data;
+            return block.getRelative(bed.getPart() == Bed.Part.HEAD ? bed.getFacing().getOppositeFace() : bed.getFacing());
+        }
+        // Stairs and trapdoors only use the half for their shape
+        if (data instanceof Bisected && !(data instanceof Stairs) && !(data instanceof TrapDoor)) {
+            return block.getRelative(((Bisected) data).getHalf() == Bisected.Half.BOTTOM ? BlockFace.UP : BlockFace.DOWN);
+        }
+        return null;
+    }
+
+    /**
+     * Find the change set of the arena containing a block
+     * @return Changes of the arena, or null if the block is not inside an arena
+     */
+    private ArenaRegistry.ArenaChanges getChanges(Block block) {
+        if (!resetEnabled || !block.getWorld().equals(pvpWorld)) {
+            return null;
+        }
+
+        ArenaRegistry.Entry entry = registry.getByCell(cellKey(block.getX(), block.getZ()));
+        return entry != null ? entry.getChanges() : null;
+    }
 
-        UUID arenaId = UUID.randomUUID();
-        String arenaGameMode = gameMode != null ? gameMode : "default";
-        Arena arena = new Arena(arenaId, centerLocation, arenaGameMode);
+    /**
+     * Release an arena after its match ended. With differential reset enabled the
+     * changed blocks are restored in place and the arena goes back to the pool
+     * once it stopped changing; otherwise (or when too many blocks changed) it is deleted right away and
+     * its coordinates are reused after the cleanup delay.
+     * @param arena The arena to release
+     */
+    public void releaseArena(Arena arena) {
+        ArenaRegistry.Entry entry = registry.get(arena);
+        if (entry == null) {
+            return;
+        }
+
+        ArenaRegistry.ArenaChanges changes = entry.getChanges();
+        if (!resetEnabled || changes.isOverflowed()) {
+            if (changes.isOverflowed()) {
+                plugin.getLogger().info("Arena at " + entry + " changed too much to reset in place");
+            }
+            // The slot cooldown already holds the coordinates for the cleanup delay
+            deleteArena(arena);
+            return;
+        }
+
+        if (!entry.transition(ArenaRegistry.State.IN_USE, ArenaRegistry.State.RESETTING)) {
+            return;
+        }
+
+        // Entities can only be touched on the main thread
+        if (plugin.getServer().isPrimaryThread()) {
+            removeEntities(entry);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, () -> removeEntities(entry));
+        }
+
+        resettingArenas.incrementAndGet();
+        restoreChanges(arena, entry, 1, 0, System.nanoTime());
+    }
+
+    /**
+     * Restore the blocks changed since the last pass, then wait for lava, water,
+     * fire and falling blocks to settle. Changes keep being recorded while the
+     * arena resets, so another pass follows until a wait passes without changes;
+     * only then the arena goes back to the pool. Arenas that keep changing are
+     * deleted instead.
+     * @param pass Number of this pass, starting at 1
+     * @param restored Blocks restored by the previous passes
+     */
+    private void restoreChanges(Arena arena, ArenaRegistry.Entry entry, int pass, int restored, long start) {
+        ArenaRegistry.ArenaChanges changes = entry.getChanges();
+        if (changes.isOverflowed() || pass > resetMaxPasses) {
+            plugin.getLogger().info("Arena at " + entry + " kept changing while resetting");
+            resettingArenas.decrementAndGet();
+            deleteArena(arena);
+            return;
+        }
 
-        arenaCoordinateMap.put(arena, coordinates);
-        arenaSpawnPoints.put(arena, spawnPoints); // Store spawn points
+        PasteManager.BlockRestoreJob restoreJob = changes.drain(pvpWorld);
+        pasteManager.submit(restoreJob).whenComplete((ignored, error) -> {
+            if (error != null || registry.get(arena) != entry) {
+                resettingArenas.decrementAndGet();
+                deleteArena(arena);
+                return;
+            }
 
-        return arena;
+            int total = restored + restoreJob.getBlockCount();
+            timingWheel.schedule(() -> {
+                if (changes.isDirty() || changes.isOverflowed()) {
+                    restoreChanges(arena, entry, pass + 1, total, start);
+                    return;
+                }
+
+                resettingArenas.decrementAndGet();
+                resetTime.recordSince(start);
+                if (registry.get(arena) != entry) {
+                    return;
+                }
+
+                removeEntities(entry);
+                changes.clear();
+                plugin.getLogger().info("Reset arena at " + entry + " (" + total + " block(s) restored in "
+                        + pass + " pass(es))");
+                if (entry.transition(ArenaRegistry.State.RESETTING, ArenaRegistry.State.POOLED)) {
+                    returnToPool(entry);
+                }
+            }, resetSettleTicks);
+        });
+    }
+
+    /**
+     * Remove dropped items, projectiles and other leftovers from an arena
+     */
+    private void removeEntities(ArenaRegistry.Entry entry) {
+        SchematicManager.SchematicDimensions dimensions = entry.getDimensions();
+        double halfSize = Math.max(dimensions.getWidth(), dimensions.getLength()) / 2.0 + ENTITY_CLEAR_MARGIN;
+
+        Location center = new Location(pvpWorld, entry.getCenterX(), 64 + dimensions.getHeight() / 2.0, entry.getCenterZ());
+        for (Entity entity : pvpWorld.getNearbyEntities(center, halfSize, dimensions.getHeight() / 2.0 + ENTITY_CLEAR_MARGIN, halfSize)) {
+            if (!(entity instanceof Player)) {
+                entity.remove();
+            }
+        }
     }
 
     /**
      * Get spawn points for an arena
      */
     public Location[] getSpawnPoints(Arena arena) {
-        return arenaSpawnPoints.get(arena);
+        ArenaRegistry.Entry entry = registry.get(arena);
+        return entry != null ? entry.getSpawnPoints() : null;
+    }
+
+    /**
+     * Get the lifecycle state of an arena
+     * @return Arena state, or null if the arena is not registered
+     */
+    public ArenaRegistry.State getArenaState(Arena arena) {
+        ArenaRegistry.Entry entry = registry.get(arena);
+        return entry != null ? entry.getState() : null;
     }
 
     /**
@@ -137,7 +829,7 @@ public class ArenaManager {
      * FIXED: For 30x30 arena, spawns are now correctly inside the arena
      */
     private Location[] calculateSpawnPoints(Location baseLocation, SchematicManager.SchematicDimensions dimensions) {
-        ConfigurationSection spawnConfig = plugin.getConfig().getConfigurationSection("arena.spawn-points");
+        int[][] offsets = configManager.getSnapshot().getSchematicSpawnOffsets();
 
         // Center of the pasted schematic
         int centerX = baseLocation.getBlockX();
@@ -146,20 +838,20 @@ public class ArenaManager {
 
         Location spawn1, spawn2;
 
-        if (spawnConfig != null && spawnConfig.contains("point1") && spawnConfig.contains("point2")) {
+        if (offsets != null) {
             // Use configured spawn points (relative to center)
             spawn1 = new Location(
                     pvpWorld,
-                    centerX + spawnConfig.getInt("point1.x"),
-                    baseY + spawnConfig.getInt("point1.y"),
-                    centerZ + spawnConfig.getInt("point1.z")
+                    centerX + offsets[0][0],
+                    baseY + offsets[0][1],
+                    centerZ + offsets[0][2]
             );
 
             spawn2 = new Location(
                     pvpWorld,
-                    centerX + spawnConfig.getInt("point2.x"),
-                    baseY + spawnConfig.getInt("point2.y"),
-                    centerZ + spawnConfig.getInt("point2.z")
+                    centerX + offsets[1][0],
+                    baseY + offsets[1][1],
+                    centerZ + offsets[1][2]
             );
         } else {
             // Auto-calculate: For 30x30, place spawns 10 blocks apart from center
@@ -182,82 +874,72 @@ public class ArenaManager {
         return new Location[]{spawn1, spawn2};
     }
 
-    private ArenaCoordinate findAvailableCoordinates() {
-        long currentTime = System.currentTimeMillis();
-        coordinateCooldowns.entrySet().removeIf(entry ->
-                currentTime - entry.getValue() > cleanupDelay);
-
-        int maxAttempts = 100;
-        int gridSize = arenaSpacing;
-
-        for (int attempt = 0; attempt < maxAttempts; attempt++) {
-            int gridX = (attempt % 10) * gridSize;
-            int gridZ = (attempt / 10) * gridSize;
-
-            ArenaCoordinate candidate = new ArenaCoordinate(gridX, gridZ);
-
-            if (!usedCoordinates.contains(candidate) &&
-                    !coordinateCooldowns.containsKey(candidate)) {
-                return candidate;
-            }
-        }
-
-        return null;
+    /**
+     * Key of the grid cell containing a block. Every block within half the cell
+     * size of an arena center belongs to that arena.
+     */
+    private long cellKey(int blockX, int blockZ) {
+        int cellSize = slotAllocator.getCellSize();
+        long gridX = Math.floorDiv(blockX + cellSize / 2, cellSize);
+        long gridZ = Math.floorDiv(blockZ + cellSize / 2, cellSize);
+        return (gridX << 32) | (gridZ & 0xFFFFFFFFL);
     }
 
     public void deleteArena(Arena arena) {
         if (arena == null) return;
 
-        ArenaCoordinate coords = arenaCoordinateMap.get(arena);
+        ArenaRegistry.Entry entry = registry.unregister(arena);
 
-        if (coords != null) {
-            usedCoordinates.remove(coords);
-            coordinateCooldowns.put(coords, System.currentTimeMillis());
-            arenaCoordinateMap.remove(arena);
-            arenaSpawnPoints.remove(arena); // Clean up spawn points
+        if (entry != null) {
+            Deque<ArenaRegistry.Entry> pool = arenaPool.get(arena.getGameMode());
+            if (pool != null) {
+                pool.remove(entry);
+            }
+            releaseChunks(entry.getChunks());
+            long readyAt = System.currentTimeMillis() + cleanupDelay;
+            if (journal != null) {
+                journal.release(entry.getSlot(), readyAt);
+            }
+            slotAllocator.release(entry.getSlot(), readyAt);
 
-            plugin.getLogger().info("Arena at " + coords +
+            plugin.getLogger().info("Arena at " + entry +
                     " marked for cleanup (cooldown: " + (cleanupDelay / 1000) + "s)");
         }
     }
 
+    /**
+     * Get the number of arenas hosting a match
+     * @return Arenas in use
+     */
     public int getActiveArenaCount() {
-        return usedCoordinates.size();
+        return registry.count(ArenaRegistry.State.IN_USE);
     }
 
-    private static class ArenaCoordinate {
-        private final int x;
-        private final int z;
-
-        public ArenaCoordinate(int x, int z) {
-            this.x = x;
-            this.z = z;
-        }
-
-        public int getX() {
-            return x;
-        }
-
-        public int getZ() {
-            return z;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            ArenaCoordinate that = (ArenaCoordinate) o;
-            return x == that.x && z == that.z;
-        }
+    /**
+     * Get the number of grid slots taken, by arenas in any state or pastes in flight
+     * @return Allocated slot count
+     */
+    public int getAllocatedSlotCount() {
+        return slotAllocator.getAllocatedCount();
+    }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, z);
-        }
+    /**
+     * Get the number of arenas currently being reset in place
+     * @return Resetting arena count
+     */
+    public int getResettingArenaCount() {
+        return resettingArenas.get();
+    }
 
-        @Override
-        public String toString() {
-            return "(" + x + ", " + z + ")";
+    /**
+     * Get the number of pre-pasted arenas waiting in the pool
+     * @return Pooled arena count
+     */
+    public int getPooledArenaCount() {
+        int count = 0;
+        for (Deque<ArenaRegistry.Entry> pool : arenaPool.values()) {
+            count += pool.size();
         }
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package com.pvparena.managers;
+
+import com.pvparena.models.Arena;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single source of truth for every arena that currently occupies a grid slot.
+ *
+ * Entries are indexed by arena id and by grid cell in concurrent maps, and an
+ * entry's lifecycle state is changed with compare-and-set, so arenas can be
+ * registered, handed out and released from any thread without a global lock.
+ */
+public class ArenaRegistry {
+
+    public enum State {
+        POOLED,
+        IN_USE,
+        RESETTING
+    }
+
+    private final Map<UUID, Entry> arenas;
+    private final Map<Long, Entry> cells; // Packed grid cell -> entry
+
+    public ArenaRegistry() {
+        this.arenas = new ConcurrentHashMap<>();
+        this.cells = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add a freshly pasted arena
+     * @return The new registry entry
+     */
+    public Entry register(Arena arena, int slot, long cellKey, int centerX, int centerZ, Location[] spawnPoints,
+                          File schematic, SchematicManager.SchematicDimensions dimensions, long[] chunks, State state) {
+        Entry entry = new Entry(arena, slot, cellKey, centerX, centerZ, spawnPoints, schematic, dimensions, chunks, state);
+        arenas.put(arena.getArenaId(), entry);
+        cells.put(cellKey, entry);
+        return entry;
+    }
+
+    /**
+     * Remove an arena from the registry
+     * @return The removed entry, or null if it was not registered
+     */
+    public Entry unregister(Arena arena) {
+        Entry entry = arenas.remove(arena.getArenaId());
+        if (entry != null) {
+            cells.remove(entry.cellKey, entry);
+        }
+        return entry;
+    }
+
+    public Entry get(Arena arena) {
+        return arena != null ? arenas.get(arena.getArenaId()) : null;
+    }
+
+    public Entry getByCell(long cellKey) {
+        return cells.get(cellKey);
+    }
+
+    public Collection<Entry> getEntries() {
+        return arenas.values();
+    }
+
+    public int size() {
+        return arenas.size();
+    }
+
+    /**
+     * Count the arenas in a lifecycle state
+     * @param state The state to count
+     * @return Number of entries currently in that state
+     */
+    public int count(State state) {
+        int count = 0;
+        for (Entry entry : arenas.values()) {
+            if (entry.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Registry record of one arena
+     */
+    public static class Entry {
+        private final Arena arena;
+        private final int slot;
+        private final long cellKey;
+        private final int centerX;
+        private final int centerZ;
+        private final Location[] spawnPoints;
+        private final File schematic;
+        private final SchematicManager.SchematicDimensions dimensions;
+        private final long[] chunks; // Packed coordinates of the chunks pinned with a plugin ticket
+        private final AtomicReference<State> state;
+        private final ArenaChanges changes;
+
+        Entry(Arena arena, int slot, long cellKey, int centerX, int centerZ, Location[] spawnPoints,
+              File schematic, SchematicManager.SchematicDimensions dimensions, long[] chunks, State state) {
+            this.arena = arena;
+            this.slot = slot;
+            this.cellKey = cellKey;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.spawnPoints = spawnPoints;
+            this.schematic = schematic;
+            this.dimensions = dimensions;
+            this.chunks = chunks;
+            this.state = new AtomicReference<>(state);
+            this.changes = new ArenaChanges();
+        }
+
+        public Arena getArena() {
+            return arena;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getCenterX() {
+            return centerX;
+        }
+
+        public int getCenterZ() {
+            return centerZ;
+        }
+
+        public Location[] getSpawnPoints() {
+            return spawnPoints;
+        }
+
+        public File getSchematic() {
+            return schematic;
+        }
+
+        public SchematicManager.SchematicDimensions getDimensions() {
+            return dimensions;
+        }
+
+        public long[] getChunks() {
+            return chunks;
+        }
+
+        public State getState() {
+            return state.get();
+        }
+
+        /**
+         * Atomically move the arena from one state to another
+         * @return true if the arena was in the expected state
+         */
+        public boolean transition(State from, State to) {
+            return state.compareAndSet(from, to);
+        }
+
+        ArenaChanges getChanges() {
+            return changes;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + centerX + ", " + centerZ + ")";
+        }
+    }
+
+    /**
+     * Original block states of the blocks changed inside one arena. Block events
+     * record into it on the main thread while a release may drain it elsewhere,
+     * so access is guarded by the (normally uncontended) instance monitor.
+     *
+     * Originals are kept until the arena is back in the pool, so a block that
+     * changes again while the arena is being reset (flowing lava, spreading
+     * fire) is restored to its state from before the match, not to the state
+     * it had when the reset started.
+     */
+    static class ArenaChanges {
+        private final Map<Long, BlockData> originals = new HashMap<>();
+        private final Set<Long> dirty = new HashSet<>(); // Changed since the last drain
+        private boolean overflowed;
+
+        synchronized void record(long position, BlockData original, int limit) {
+            if (overflowed) {
+                return;
+            }
+            if (originals.containsKey(position)) {
+                // Only the first change matters, later ones overwrite an already tracked block
+                dirty.add(position);
+                return;
+            }
+
+            if (originals.size() >= limit) {
+                overflowed = true;
+                originals.clear();
+                dirty.clear();
+                return;
+            }
+
+            originals.put(position, original);
+            dirty.add(position);
+        }
+
+        synchronized boolean isOverflowed() {
+            return overflowed;
+        }
+
+        /**
+         * @return true if blocks changed since the last drain
+         */
+        synchronized boolean isDirty() {
+            return !dirty.isEmpty();
+        }
+
+        /**
+         * Take the blocks changed since the last drain. Their originals are kept,
+         * so blocks changing again after the drain are still restored correctly.
+         * @param world The arena world
+         * @return Job restoring the original state of every block changed since the last drain
+         */
+        synchronized PasteManager.BlockRestoreJob drain(World world) {
+            long[] positions = new long[dirty.size()];
+            BlockData[] blocks = new BlockData[positions.length];
+            int index = 0;
+            for (long position : dirty) {
+                positions[index] = position;
+                blocks[index] = originals.get(position);
+                index++;
+            }
+            dirty.clear();
+            return new PasteManager.BlockRestoreJob(world, positions, blocks);
+        }
+
+        /**
+         * Forget every recorded change, once the arena is back in its original state
+         */
+        synchronized void clear() {
+            originals.clear();
+            dirty.clear();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.pvparena.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of online players per chat channel. Every player is in the channel of
+ * their world, and optionally in the channel of their match and of their queue.
+ * Memberships change on the main thread (join, quit, world change, queue and
+ * match changes); chat threads only read, so picking the recipients of a
+ * message is one map lookup instead of a scan over every online player.
+ */
+public class ChatManager {
+
+    /**
+     * Channel a player writes in
+     */
+    public enum Channel {
+        WORLD,
+        MATCH,
+        QUEUE
+    }
+
+    private final Map<String, Set<Player>> channels; // Channel key -> online members
+    private final Map<UUID, ChatState> players;
+
+    public ChatManager() {
+        this.channels = new ConcurrentHashMap<>();
+        this.players = new ConcurrentHashMap<>();
+
+        // Players already online after a plugin reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            handleJoin(player);
+        }
+    }
+
+    public void handleJoin(Player player) {
+        ChatState state = new ChatState(player);
+        players.put(player.getUniqueId(), state);
+        state.worldKey = worldKey(player.getWorld());
+        join(state.worldKey, player);
+    }
+
+    public void handleWorldChange(Player player) {
+        ChatState state = players.get(player.getUniqueId());
+        if (state == null) {
+            return;
+        }
+        leave(state.worldKey, player);
+        state.worldKey = worldKey(player.getWorld());
+        join(state.worldKey, player);
+    }
+
+    public void handleQuit(Player player) {
+        ChatState state = players.remove(player.getUniqueId());
+        if (state == null) {
+            return;
+        }
+        leave(state.worldKey, player);
+        leave(state.matchKey, player);
+        leave(state.queueKey, player);
+    }
+
+    /**
+     * Move a player into the channel of a match
+     * @param matchId The match, or null to leave the current match channel
+     */
+    public void setMatch(UUID playerId, UUID matchId) {
+        ChatState state = players.get(playerId);
+        if (state == null) {
+            return;
+        }
+        leave(state.matchKey, state.player);
+        state.matchKey = matchId != null ? "match:" + matchId : null;
+        join(state.matchKey, state.player);
+    }
+
+    /**
+     * Move a player into the channel of a game mode queue
+     * @param gameMode The game mode, or null to leave the current queue channel
+     */
+    public void setQueue(UUID playerId, String gameMode) {
+        ChatState state = players.get(playerId);
+        if (state == null) {
+            return;
+        }
+        leave(state.queueKey, state.player);
+        state.queueKey = gameMode != null ? "queue:" + gameMode : null;
+        join(state.queueKey, state.player);
+    }
+
+    /**
+     * Select the channel a player writes in
+     * @return false if the player is not in such a channel right now
+     */
+    public boolean selectChannel(Player player, Channel channel) {
+        ChatState state = players.get(player.getUniqueId());
+        if (state == null || getKey(state, channel) == null) {
+            return false;
+        }
+        state.selected = channel;
+        return true;
+    }
+
+    /**
+     * Get the channel a player writes in. A selected match or queue channel the
+     * player has left falls back to the world channel.
+     */
+    public Channel getActiveChannel(Player player) {
+        ChatState state = players.get(player.getUniqueId());
+        if (state == null) {
+            return Channel.WORLD;
+        }
+        Channel selected = state.selected;
+        return getKey(state, selected) != null ? selected : Channel.WORLD;
+    }
+
+    /**
+     * Get the members of a channel of a player. The set is live and must not be modified.
+     * @return Online members, or null if the player is not in such a channel
+     */
+    public Set<Player> getMembers(Player player, Channel channel) {
+        ChatState state = players.get(player.getUniqueId());
+        String key = state != null ? getKey(state, channel) : null;
+        if (key == null) {
+            return null;
+        }
+        Set<Player> members = channels.get(key);
+        return members != null ? members : Collections.emptySet();
+    }
+
+    public int getChannelCount() {
+        return channels.size();
+    }
+
+    private String getKey(ChatState state, Channel channel) {
+        switch (channel) {
+            case MATCH:
+                return state.matchKey;
+            case QUEUE:
+                return state.queueKey;
+            default:
+                return state.worldKey;
+        }
+    }
+
+    private void join(String key, Player player) {
+        if (key == null) {
+            return;
+        }
+        channels.compute(key, (k, members) -> {
+            if (members == null) {
+                members = ConcurrentHashMap.newKeySet();
+            }
+            members.add(player);
+            return members;
+        });
+    }
+
+    private void leave(String key, Player player) {
+        if (key == null) {
+            return;
+        }
+        channels.computeIfPresent(key, (k, members) -> {
+            members.remove(player);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private static String worldKey(World world) {
+        return "world:" + world.getUID();
+    }
+
+    private static class ChatState {
+        private final Player player;
+        private volatile String worldKey;
+        private volatile String matchKey;
+        private volatile String queueKey;
+        private volatile Channel selected;
+
+        ChatState(Player player) {
+            this.player = player;
+            this.selected = Channel.WORLD;
+        }
+    }
+}
@@ -3,228 +3,187 @@ package com.pvparena.managers;
 import com.pvparena.PVPArenaPlugin;
 import com.pvparena.models.GameMode;
 import com.pvparena.models.Kit;
-import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.enchantments.Enchantment;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.PotionMeta;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
-
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.logging.Level;
 
+/**
+ * Entry point to the config. All settings are read from the current
+ * {@link ConfigSnapshot}, which is replaced atomically on reload. The plugin's
+ * own FileConfiguration is never reloaded, it only holds the startup settings.
+ */
 public class ConfigManager {
 
     private final PVPArenaPlugin plugin;
-    private final FileConfiguration config;
-    private final Map<String, GameMode> gameModes;
-    private final Map<String, Kit> kits;
+    private volatile ConfigSnapshot snapshot;
 
     public ConfigManager(PVPArenaPlugin plugin) {
         this.plugin = plugin;
-        this.config = plugin.getConfig();
-        this.gameModes = new HashMap<>();
-        this.kits = new HashMap<>();
-        
-        loadKits();
-        loadGameModes();
-    }
-
-    private void loadGameModes() {
-        gameModes.clear();
-        ConfigurationSection modesSection = config.getConfigurationSection("game-modes");
-        
-        if (modesSection == null) {
-            plugin.getLogger().warning("No game modes configured!");
-            return;
-        }
-        
-        for (String key : modesSection.getKeys(false)) {
-            ConfigurationSection modeSection = modesSection.getConfigurationSection(key);
-            if (modeSection == null) continue;
-            
-            String displayName = ChatColor.translateAlternateColorCodes('&', 
-                modeSection.getString("display-name", key));
-            Material material = Material.valueOf(modeSection.getString("material", "DIAMOND_SWORD"));
-            int slot = modeSection.getInt("slot", 0);
-            String kitName = modeSection.getString("kit", key);
-            
-            GameMode mode = new GameMode(key, displayName, material, slot, kitName);
-            gameModes.put(key, mode);
-        }
-        
-        plugin.getLogger().info("Loaded " + gameModes.size() + " game modes");
+        this.snapshot = new ConfigSnapshot(plugin.getConfig(), plugin.getLogger());
     }
 
-    private void loadKits() {
-        kits.clear();
-        ConfigurationSection kitsSection = config.getConfigurationSection("kits");
-        
-        if (kitsSection == null) {
-            plugin.getLogger().warning("No kits configured!");
-            return;
-        }
-        
-        for (String key : kitsSection.getKeys(false)) {
-            ConfigurationSection kitSection = kitsSection.getConfigurationSection(key);
-            if (kitSection == null) continue;
-            
-            Kit kit = new Kit(key);
-            
-            // Load armor
-            ConfigurationSection armorSection = kitSection.getConfigurationSection("armor");
-            if (armorSection != null) {
-                kit.setHelmet(getMaterial(armorSection.getString("helmet")));
-                kit.setChestplate(getMaterial(armorSection.getString("chestplate")));
-                kit.setLeggings(getMaterial(armorSection.getString("leggings")));
-                kit.setBoots(getMaterial(armorSection.getString("boots")));
-            }
-            
-            // Load items
-            List<Map<?, ?>> items = kitSection.getMapList("items");
-            for (Map<?, ?> itemMap : items) {
-                String type = (String) itemMap.get("type");
-                int amount = itemMap.containsKey("amount") ? (Integer) itemMap.get("amount") : 1;
-                
-                ItemStack item = new ItemStack(Material.valueOf(type), amount);
-                
-                // Handle potions
-                if (type.contains("POTION")) {
-                    String potionType = (String) itemMap.get("potion-type");
-                    int potionLevel = itemMap.containsKey("potion-level") ? (Integer) itemMap.get("potion-level") : 1;
-                    
-                    if (potionType != null && item.getItemMeta() instanceof PotionMeta) {
-                        PotionMeta meta = (PotionMeta) item.getItemMeta();
-                        PotionEffectType effectType = PotionEffectType.getByName(potionType);
-                        if (effectType != null) {
-                            meta.addCustomEffect(new PotionEffect(effectType, 1, potionLevel - 1), true);
-                            item.setItemMeta(meta);
-                        }
-                    }
-                }
-                
-                kit.addItem(item);
+    /**
+     * Re-read config.yml into a new configuration and swap in the compiled
+     * result. When the file cannot be parsed or compiled, the previous snapshot
+     * stays active.
+     * @return true if the new config is active
+     */
+    public boolean reload() {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(new File(plugin.getDataFolder(), "config.yml"));
+            InputStream defaults = plugin.getResource("config.yml");
+            if (defaults != null) {
+                config.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8)));
             }
-            
-            kits.put(key, kit);
+            snapshot = new ConfigSnapshot(config, plugin.getLogger());
+            return true;
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load config, keeping the previous one", e);
+            return false;
         }
-        
-        plugin.getLogger().info("Loaded " + kits.size() + " kits");
     }
 
-    private Material getMaterial(String name) {
-        if (name == null) return Material.AIR;
-        try {
-            return Material.valueOf(name);
-        } catch (IllegalArgumentException e) {
-            return Material.AIR;
-        }
+    /**
+     * Get the current snapshot. Read several settings from one snapshot to get a
+     * consistent view across a concurrent reload.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public int getArenaSpacing() {
-        return config.getInt("arena-spacing", 1000);
+        return snapshot.getArenaSpacing();
     }
 
     public int getArenaCleanupDelay() {
-        return config.getInt("arena-cleanup-delay", 30);
+        return snapshot.getArenaCleanupDelay();
     }
 
     public int getCountdownDuration() {
-        return config.getInt("countdown-duration", 3);
+        return snapshot.getCountdownDuration();
+    }
+
+    /**
+     * Get how long sudden death lasts before the match ends in a draw
+     * @return Duration in seconds
+     */
+    public int getSuddenDeathDuration() {
+        return snapshot.getSuddenDeathDuration();
+    }
+
+    /**
+     * Get the health every fighter is capped to when sudden death starts
+     * @return Health in half hearts
+     */
+    public double getSuddenDeathHealth() {
+        return snapshot.getSuddenDeathHealth();
     }
 
     public String getPvpWorldName() {
-        return config.getString("pvp-world-name", "pvp");
+        return snapshot.getPvpWorldName();
     }
 
     public Location getMainWorldSpawn() {
-        String worldName = config.getString("main-world-spawn.world", "world");
-        int x = config.getInt("main-world-spawn.x", 0);
-        int y = config.getInt("main-world-spawn.y", 64);
-        int z = config.getInt("main-world-spawn.z", 0);
-        
-        return new Location(plugin.getServer().getWorld(worldName), x, y, z);
+        ConfigSnapshot current = snapshot;
+        int[] spawn = current.getMainWorldSpawn();
+        return new Location(plugin.getServer().getWorld(current.getMainWorldName()), spawn[0], spawn[1], spawn[2]);
     }
 
     public String getCompassName() {
-        return ChatColor.translateAlternateColorCodes('&', 
-            config.getString("compass-item.name", "&c&lPVP Arena"));
+        return snapshot.getCompassName();
     }
 
     public List<String> getCompassLore() {
-        List<String> lore = new ArrayList<>();
-        List<String> configLore = config.getStringList("compass-item.lore");
-        for (String line : configLore) {
-            lore.add(ChatColor.translateAlternateColorCodes('&', line));
-        }
-        return lore;
+        return snapshot.getCompassLore();
     }
 
+    /**
+     * Get every game mode in config order
+     * @return Unmodifiable map of game mode key to game mode
+     */
     public Map<String, GameMode> getGameModes() {
-        return new HashMap<>(gameModes);
+        return snapshot.getGameModes();
     }
 
     public GameMode getGameMode(String key) {
-        return gameModes.get(key);
+        return snapshot.getGameMode(key);
     }
 
     public Kit getKit(String name) {
-        return kits.get(name);
+        return snapshot.getKit(name);
     }
 
     public int getArenaSize() {
-        return config.getInt("arena.size", 50);
+        return snapshot.getArenaSize();
     }
 
     public int getFloorY() {
-        return config.getInt("arena.floor-y", 64);
+        return snapshot.getFloorY();
     }
 
     public Location getSpawnPoint1(Location arenaCenter) {
-        int x = config.getInt("arena.spawn-points.point1.x", 15);
-        int y = config.getInt("arena.spawn-points.point1.y", 65);
-        int z = config.getInt("arena.spawn-points.point1.z", 0);
-        
-        return arenaCenter.clone().add(x, y - arenaCenter.getY(), z);
+        return getSpawnPoint(0, arenaCenter);
     }
 
     public Location getSpawnPoint2(Location arenaCenter) {
-        int x = config.getInt("arena.spawn-points.point2.x", -15);
-        int y = config.getInt("arena.spawn-points.point2.y", 65);
-        int z = config.getInt("arena.spawn-points.point2.z", 0);
-        
-        return arenaCenter.clone().add(x, y - arenaCenter.getY(), z);
+        return getSpawnPoint(1, arenaCenter);
+    }
+
+    private Location getSpawnPoint(int point, Location arenaCenter) {
+        int[] offset = snapshot.getSpawnPoint(point);
+        return arenaCenter.clone().add(offset[0], offset[1] - arenaCenter.getY(), offset[2]);
     }
 
     public Material getFloorMaterial() {
-        String material = config.getString("arena.blocks.floor.material", "STONE");
-        return Material.valueOf(material);
+        return snapshot.getFloorMaterial();
     }
 
     public Material getBarrierMaterial() {
-        String material = config.getString("arena.blocks.barrier.material", "BARRIER");
-        return Material.valueOf(material);
+        return snapshot.getBarrierMaterial();
     }
 
     public int getBarrierHeight() {
-        return config.getInt("arena.blocks.barrier.height", 10);
+        return snapshot.getBarrierHeight();
     }
 
     public String getMessage(String key) {
-        return ChatColor.translateAlternateColorCodes('&', 
-            config.getString("messages." + key, ""));
+        return snapshot.getMessage(key).render();
     }
 
+    /**
+     * Render a message
+     * @param replacements Placeholder names and values, alternating
+     */
     public String getMessage(String key, String... replacements) {
-        String message = getMessage(key);
-        for (int i = 0; i < replacements.length; i += 2) {
-            if (i + 1 < replacements.length) {
-                message = message.replace("{" + replacements[i] + "}", replacements[i + 1]);
-            }
+        return snapshot.getMessage(key).render(replacements);
+    }
+
+    /**
+     * Render a message once and send it to every recipient
+     * @param replacements Placeholder names and values, alternating
+     */
+    public void sendMessage(Collection<? extends CommandSender> recipients, String key, String... replacements) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        String message = getMessage(key, replacements);
+        if (message.isEmpty()) {
+            return;
+        }
+        for (CommandSender recipient : recipients) {
+            recipient.sendMessage(message);
         }
-        return message;
     }
 }
@@ -0,0 +1,645 @@
+package com.pvparena.managers;
+
+import com.pvparena.models.GameMode;
+import com.pvparena.models.Kit;
+import com.pvparena.models.Match;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.PotionMeta;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Immutable, fully compiled view of the config. Game modes, kits and colored
+ * messages are built once here, so reading a setting never parses YAML or
+ * translates colors. A reload builds a new snapshot and swaps it in as a whole,
+ * so readers always see one consistent config.
+ */
+public class ConfigSnapshot {
+
+    private final Logger logger;
+
+    private final Map<String, GameMode> gameModes; // Config order
+    private final Map<String, Kit> kits;
+    private final Map<String, MessageTemplate> messages; // Colors already translated
+
+    private final String pvpWorldName;
+    private final String compassName;
+    private final List<String> compassLore;
+    private final String mainWorldName;
+    private final int[] mainWorldSpawn;
+
+    // Chat settings
+    private final boolean perWorldChat;
+    private final boolean chatChannels;
+    private final String matchChatPrefix; // Escaped for use in a chat format
+    private final String queueChatPrefix;
+
+    // Match settings
+    private final int countdownDuration;
+    private final int suddenDeathDuration;
+    private final double suddenDeathHealth;
+
+    // Arena settings
+    private final int arenaSpacing;
+    private final int arenaCleanupDelay;
+    private final int arenaSize;
+    private final int floorY;
+    private final int[] spawnPoint1;
+    private final int[] spawnPoint2;
+    private final Material floorMaterial;
+    private final Material barrierMaterial;
+    private final int barrierHeight;
+    private final int[][] schematicSpawnOffsets; // null if arena.spawn-points is not configured
+
+    // Arena pool, reset and chunk settings
+    private final boolean poolEnabled;
+    private final int poolMaxConcurrentPastes;
+    private final Map<String, int[]> poolLimits; // {min, max} per game mode
+    private final boolean resetEnabled;
+    private final int maxTrackedBlocks;
+    private final int resetSettleTicks;
+    private final int resetMaxPasses;
+    private final boolean chunkPreload;
+    private final int chunkMargin;
+
+    // Paste and schematic cache settings
+    private final int pasteBlocksPerTick;
+    private final int pasteMaxMsPerTick;
+    private final boolean schematicCacheEnabled;
+    private final long schematicCacheMaxMemory;
+    private final boolean schematicCacheWarm;
+
+    // Matchmaking, party and stats settings
+    private final int maxMatchDuration;
+    private final int defaultRating;
+    private final int initialWindow;
+    private final double windowGrowthPerSecond;
+    private final int maxWindow;
+    private final long matchmakingInterval;
+    private final int partyMaxSize;
+    private final int partyInviteTimeout;
+    private final int kFactor;
+
+    // Metrics settings
+    private final long metricsDumpInterval;
+    private final String metricsFile;
+
+    /**
+     * Compile a config. Invalid entries are logged and skipped where possible.
+     * @throws IllegalArgumentException if the config cannot be compiled
+     */
+    public ConfigSnapshot(FileConfiguration config, Logger logger) {
+        this.logger = logger;
+        this.kits = Collections.unmodifiableMap(loadKits(config));
+        this.gameModes = Collections.unmodifiableMap(loadGameModes(config));
+        this.messages = Collections.unmodifiableMap(loadMessages(config));
+
+        this.pvpWorldName = config.getString("pvp-world-name", "pvp");
+        this.compassName = color(config.getString("compass-item.name", "&c&lPVP Arena"));
+        List<String> lore = new ArrayList<>();
+        for (String line : config.getStringList("compass-item.lore")) {
+            lore.add(color(line));
+        }
+        this.compassLore = Collections.unmodifiableList(lore);
+        this.mainWorldName = config.getString("main-world-spawn.world", "world");
+        this.mainWorldSpawn = new int[]{
+                config.getInt("main-world-spawn.x", 0),
+                config.getInt("main-world-spawn.y", 64),
+                config.getInt("main-world-spawn.z", 0)
+        };
+
+        this.perWorldChat = config.getBoolean("chat.per-world", true);
+        this.chatChannels = config.getBoolean("chat.channels", true);
+        this.matchChatPrefix = color(config.getString("chat.match-prefix", "&c[Match] ")).replace("%", "%%");
+        this.queueChatPrefix = color(config.getString("chat.queue-prefix", "&e[Queue] ")).replace("%", "%%");
+
+        this.countdownDuration = config.getInt("countdown-duration", 3);
+        this.suddenDeathDuration = Math.max(1, config.getInt("match.sudden-death.duration", 60));
+        this.suddenDeathHealth = Math.max(1.0, Math.min(20.0, config.getDouble("match.sudden-death.health", 2.0)));
+
+        this.arenaSpacing = config.getInt("arena-spacing", 1000);
+        this.arenaCleanupDelay = config.getInt("arena-cleanup-delay", 30);
+        this.arenaSize = config.getInt("arena.size", 50);
+        this.floorY = config.getInt("arena.floor-y", 64);
+        this.spawnPoint1 = new int[]{
+                config.getInt("arena.spawn-points.point1.x", 15),
+                config.getInt("arena.spawn-points.point1.y", 65),
+                config.getInt("arena.spawn-points.point1.z", 0)
+        };
+        this.spawnPoint2 = new int[]{
+                config.getInt("arena.spawn-points.point2.x", -15),
+                config.getInt("arena.spawn-points.point2.y", 65),
+                config.getInt("arena.spawn-points.point2.z", 0)
+        };
+        this.floorMaterial = Material.valueOf(config.getString("arena.blocks.floor.material", "STONE"));
+        this.barrierMaterial = Material.valueOf(config.getString("arena.blocks.barrier.material", "BARRIER"));
+        this.barrierHeight = config.getInt("arena.blocks.barrier.height", 10);
+        ConfigurationSection spawnConfig = config.getConfigurationSection("arena.spawn-points");
+        this.schematicSpawnOffsets = spawnConfig != null && spawnConfig.contains("point1") && spawnConfig.contains("point2")
+                ? new int[][]{
+                        {spawnConfig.getInt("point1.x"), spawnConfig.getInt("point1.y"), spawnConfig.getInt("point1.z")},
+                        {spawnConfig.getInt("point2.x"), spawnConfig.getInt("point2.y"), spawnConfig.getInt("point2.z")}}
+                : null;
+
+        ConfigurationSection poolConfig = config.getConfigurationSection("arena-pool");
+        this.poolEnabled = poolConfig != null && poolConfig.getBoolean("enabled", true);
+        this.poolMaxConcurrentPastes = poolConfig != null ? Math.max(1, poolConfig.getInt("max-concurrent-pastes", 1)) : 1;
+        this.poolLimits = Collections.unmodifiableMap(loadPoolLimits(config, poolConfig));
+        this.resetEnabled = config.getBoolean("arena-reset.enabled", true);
+        this.maxTrackedBlocks = Math.max(0, config.getInt("arena-reset.max-tracked-blocks", 50000));
+        this.resetSettleTicks = Math.max(1, config.getInt("arena-reset.settle-ticks", 30));
+        this.resetMaxPasses = Math.max(1, config.getInt("arena-reset.max-passes", 4));
+        this.chunkPreload = config.getBoolean("arena-chunks.preload", true);
+        this.chunkMargin = Math.max(0, config.getInt("arena-chunks.margin", 16));
+
+        this.pasteBlocksPerTick = config.getInt("paste.blocks-per-tick", 5000);
+        this.pasteMaxMsPerTick = Math.max(1, config.getInt("paste.max-ms-per-tick", 10));
+        this.schematicCacheEnabled = config.getBoolean("schematic-cache.enabled", true);
+        this.schematicCacheMaxMemory = config.getLong("schematic-cache.max-memory-mb", 64) * 1024L * 1024L;
+        this.schematicCacheWarm = config.getBoolean("schematic-cache.warm-on-startup", true);
+
+        this.maxMatchDuration = Math.max(0, config.getInt("match.max-duration", 600));
+        this.defaultRating = config.getInt("matchmaking.default-rating", 1000);
+        this.initialWindow = Math.max(0, config.getInt("matchmaking.initial-window", 100));
+        this.windowGrowthPerSecond = Math.max(0, config.getDouble("matchmaking.window-growth", 25));
+        int configuredMax = config.getInt("matchmaking.max-window", 1000);
+        this.maxWindow = configuredMax > 0 ? configuredMax : Integer.MAX_VALUE;
+        this.matchmakingInterval = Math.max(1, config.getLong("matchmaking.interval", 20));
+        this.partyMaxSize = Math.max(2, config.getInt("party.max-size", 4));
+        this.partyInviteTimeout = config.getInt("party.invite-timeout", 60);
+        this.kFactor = Math.max(0, config.getInt("stats.k-factor", 32));
+
+        this.metricsDumpInterval = config.getLong("metrics.dump-interval", 60);
+        this.metricsFile = config.getString("metrics.file", "metrics.prom");
+    }
+
+    /**
+     * Pool limits of every game mode, falling back to the pool defaults
+     */
+    private Map<String, int[]> loadPoolLimits(FileConfiguration config, ConfigurationSection poolConfig) {
+        int defaultMin = poolConfig != null ? poolConfig.getInt("default.min", 1) : 0;
+        int defaultMax = poolConfig != null ? poolConfig.getInt("default.max", 2) : 0;
+
+        Map<String, int[]> limits = new HashMap<>();
+        ConfigurationSection modesSection = config.getConfigurationSection("game-modes");
+        if (modesSection != null) {
+            for (String mode : modesSection.getKeys(false)) {
+                int min = poolConfig != null ? poolConfig.getInt("game-modes." + mode + ".min", defaultMin) : 0;
+                int max = poolConfig != null ? poolConfig.getInt("game-modes." + mode + ".max", defaultMax) : 0;
+                limits.put(mode, new int[]{Math.max(0, min), Math.max(min, max)});
+            }
+        }
+        return limits;
+    }
+
+    private Map<String, GameMode> loadGameModes(FileConfiguration config) {
+        Map<String, GameMode> modes = new LinkedHashMap<>();
+        ConfigurationSection modesSection = config.getConfigurationSection("game-modes");
+        
+        if (modesSection == null) {
+            logger.warning("No game modes configured!");
+            return modes;
+        }
+        
+        for (String key : modesSection.getKeys(false)) {
+            ConfigurationSection modeSection = modesSection.getConfigurationSection(key);
+            if (modeSection == null) continue;
+            
+            String displayName = color(modeSection.getString("display-name", key));
+            Material material = Material.valueOf(modeSection.getString("material", "DIAMOND_SWORD"));
+            int slot = modeSection.getInt("slot", 0);
+            String kitName = modeSection.getString("kit", key);
+            int teamSize = Math.max(1, modeSection.getInt("team-size", 1));
+            int maxDuration = Math.max(0, modeSection.getInt("max-duration", config.getInt("match.max-duration", 600)));
+            Match.TimeoutResolution resolution = parseTimeoutResolution(key,
+                    modeSection.getString("timeout-resolution", config.getString("match.timeout-resolution", "draw")));
+
+            if (!kits.containsKey(kitName)) {
+                logger.warning("Game mode " + key + " uses unknown kit '" + kitName + "'");
+            }
+            
+            modes.put(key, new GameMode(key, displayName, material, slot, kitName, teamSize, maxDuration, resolution));
+        }
+        
+        logger.info("Loaded " + modes.size() + " game modes");
+        return modes;
+    }
+
+    private Match.TimeoutResolution parseTimeoutResolution(String mode, String value) {
+        try {
+            return Match.TimeoutResolution.valueOf(value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown timeout-resolution '" + value + "' for game mode " + mode + ", using draw");
+            return Match.TimeoutResolution.DRAW;
+        }
+    }
+
+    private Map<String, Kit> loadKits(FileConfiguration config) {
+        Map<String, Kit> loaded = new HashMap<>();
+        ConfigurationSection kitsSection = config.getConfigurationSection("kits");
+        
+        if (kitsSection == null) {
+            logger.warning("No kits configured!");
+            return loaded;
+        }
+        
+        for (String key : kitsSection.getKeys(false)) {
+            ConfigurationSection kitSection = kitsSection.getConfigurationSection(key);
+            if (kitSection == null) continue;
+            
+            loaded.put(key, compileKit(key, kitSection));
+        }
+        
+        logger.info("Loaded " + loaded.size() + " kits");
+        return loaded;
+    }
+
+    private Map<String, MessageTemplate> loadMessages(FileConfiguration config) {
+        Map<String, MessageTemplate> loaded = new HashMap<>();
+        ConfigurationSection messagesSection = config.getConfigurationSection("messages");
+        if (messagesSection != null) {
+            for (String key : messagesSection.getKeys(false)) {
+                loaded.put(key, new MessageTemplate(color(messagesSection.getString(key, ""))));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Build the inventory snapshot of a kit. Items with a 'slot' are placed there
+     * first, the rest fill the free slots in config order, split into full stacks.
+     */
+    private Kit compileKit(String key, ConfigurationSection kitSection) {
+        // Load armor
+        ItemStack[] armor = new ItemStack[4];
+        ConfigurationSection armorSection = kitSection.getConfigurationSection("armor");
+        if (armorSection != null) {
+            armor[3] = getArmorItem(armorSection.getString("helmet"));
+            armor[2] = getArmorItem(armorSection.getString("chestplate"));
+            armor[1] = getArmorItem(armorSection.getString("leggings"));
+            armor[0] = getArmorItem(armorSection.getString("boots"));
+        }
+
+        // Load items
+        ItemStack[] contents = new ItemStack[Kit.STORAGE_SIZE];
+        List<ItemStack> unplaced = new ArrayList<>();
+        for (Map<?, ?> itemMap : kitSection.getMapList("items")) {
+            ItemStack item = createKitItem(itemMap);
+            if (item == null) {
+                logger.warning("Kit " + key + " has an invalid item: " + itemMap);
+                continue;
+            }
+
+            Object slot = itemMap.get("slot");
+            if (!(slot instanceof Integer)) {
+                unplaced.add(item);
+            } else if ((Integer) slot < 0 || (Integer) slot >= Kit.STORAGE_SIZE || contents[(Integer) slot] != null) {
+                logger.warning("Kit " + key + " has an invalid or duplicate slot " + slot + ", placing "
+                        + item.getType() + " in the next free slot");
+                unplaced.add(item);
+            } else {
+                contents[(Integer) slot] = item;
+            }
+        }
+
+        int next = 0;
+        for (ItemStack item : unplaced) {
+            int remaining = item.getAmount();
+            int maxStack = Math.max(1, item.getMaxStackSize());
+            while (remaining > 0) {
+                while (next < contents.length && contents[next] != null) {
+                    next++;
+                }
+                if (next == contents.length) {
+                    logger.warning("Kit " + key + " does not fit in the inventory, dropped "
+                            + remaining + "x " + item.getType());
+                    break;
+                }
+
+                ItemStack stack = item.clone();
+                stack.setAmount(Math.min(remaining, maxStack));
+                contents[next] = stack;
+                remaining -= stack.getAmount();
+            }
+        }
+
+        return new Kit(key, armor, contents);
+    }
+
+    private ItemStack createKitItem(Map<?, ?> itemMap) {
+        Object type = itemMap.get("type");
+        if (!(type instanceof String)) {
+            return null;
+        }
+
+        Material material = getMaterial((String) type);
+        if (material == Material.AIR) {
+            return null;
+        }
+
+        int amount = itemMap.get("amount") instanceof Integer ? (Integer) itemMap.get("amount") : 1;
+        ItemStack item = new ItemStack(material, Math.max(1, amount));
+
+        // Handle potions
+        Object potionType = itemMap.get("potion-type");
+        if (potionType instanceof String && item.getItemMeta() instanceof PotionMeta) {
+            int potionLevel = itemMap.get("potion-level") instanceof Integer ? (Integer) itemMap.get("potion-level") : 1;
+            PotionMeta meta = (PotionMeta) item.getItemMeta();
+            PotionEffectType effectType = PotionEffectType.getByName((String) potionType);
+            if (effectType != null) {
+                meta.addCustomEffect(new PotionEffect(effectType, 1, potionLevel - 1), true);
+                item.setItemMeta(meta);
+            }
+        }
+        return item;
+    }
+
+    private ItemStack getArmorItem(String name) {
+        Material material = getMaterial(name);
+        return material != Material.AIR ? new ItemStack(material) : null;
+    }
+
+    private Material getMaterial(String name) {
+        if (name == null) return Material.AIR;
+        try {
+            return Material.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return Material.AIR;
+        }
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+
+    /**
+     * Get every game mode in config order
+     * @return Unmodifiable map of game mode key to game mode
+     */
+    public Map<String, GameMode> getGameModes() {
+        return gameModes;
+    }
+
+    public GameMode getGameMode(String key) {
+        return gameModes.get(key);
+    }
+
+    public Kit getKit(String name) {
+        return kits.get(name);
+    }
+
+    /**
+     * Get a compiled message
+     * @return The message template, or an empty template if it is not configured
+     */
+    public MessageTemplate getMessage(String key) {
+        return messages.getOrDefault(key, MessageTemplate.EMPTY);
+    }
+
+    public String getPvpWorldName() {
+        return pvpWorldName;
+    }
+
+    public String getCompassName() {
+        return compassName;
+    }
+
+    public List<String> getCompassLore() {
+        return compassLore;
+    }
+
+    public String getMainWorldName() {
+        return mainWorldName;
+    }
+
+    /**
+     * Get the main world spawn as x, y, z
+     */
+    public int[] getMainWorldSpawn() {
+        return mainWorldSpawn.clone();
+    }
+
+    /**
+     * Check whether chat is limited to players in the same world
+     */
+    public boolean isPerWorldChat() {
+        return perWorldChat;
+    }
+
+    /**
+     * Check whether players may switch to match and queue chat channels
+     */
+    public boolean isChatChannelsEnabled() {
+        return chatChannels;
+    }
+
+    /**
+     * Get the prefix of a chat channel, escaped for use in a chat format
+     */
+    public String getChatPrefix(ChatManager.Channel channel) {
+        switch (channel) {
+            case MATCH:
+                return matchChatPrefix;
+            case QUEUE:
+                return queueChatPrefix;
+            default:
+                return "";
+        }
+    }
+
+    public int getCountdownDuration() {
+        return countdownDuration;
+    }
+
+    public int getSuddenDeathDuration() {
+        return suddenDeathDuration;
+    }
+
+    public double getSuddenDeathHealth() {
+        return suddenDeathHealth;
+    }
+
+    public int getArenaSpacing() {
+        return arenaSpacing;
+    }
+
+    public int getArenaCleanupDelay() {
+        return arenaCleanupDelay;
+    }
+
+    public int getArenaSize() {
+        return arenaSize;
+    }
+
+    public int getFloorY() {
+        return floorY;
+    }
+
+    /**
+     * Get the offset of a fallback spawn point from the arena center (y is absolute)
+     * @param point Spawn point index (0 or 1)
+     * @return x, y, z
+     */
+    public int[] getSpawnPoint(int point) {
+        return (point == 0 ? spawnPoint1 : spawnPoint2).clone();
+    }
+
+    public Material getFloorMaterial() {
+        return floorMaterial;
+    }
+
+    public Material getBarrierMaterial() {
+        return barrierMaterial;
+    }
+
+    public int getBarrierHeight() {
+        return barrierHeight;
+    }
+
+    /**
+     * Get the configured spawn offsets of schematic arenas, relative to the paste
+     * location and two blocks above it
+     * @return x, y, z per spawn point, or null to place spawns automatically
+     */
+    public int[][] getSchematicSpawnOffsets() {
+        return schematicSpawnOffsets == null ? null
+                : new int[][]{schematicSpawnOffsets[0].clone(), schematicSpawnOffsets[1].clone()};
+    }
+
+    public boolean isPoolEnabled() {
+        return poolEnabled;
+    }
+
+    public int getPoolMaxConcurrentPastes() {
+        return poolMaxConcurrentPastes;
+    }
+
+    /**
+     * Get the arena pool limits
+     * @return Unmodifiable map of game mode key to {min, max}
+     */
+    public Map<String, int[]> getPoolLimits() {
+        return poolLimits;
+    }
+
+    public boolean isResetEnabled() {
+        return resetEnabled;
+    }
+
+    public int getMaxTrackedBlocks() {
+        return maxTrackedBlocks;
+    }
+
+    public int getResetSettleTicks() {
+        return resetSettleTicks;
+    }
+
+    public int getResetMaxPasses() {
+        return resetMaxPasses;
+    }
+
+    public boolean isChunkPreloadEnabled() {
+        return chunkPreload;
+    }
+
+    /**
+     * Get the blocks around the largest schematic whose chunks are pinned
+     */
+    public int getChunkMargin() {
+        return chunkMargin;
+    }
+
+    public int getPasteBlocksPerTick() {
+        return pasteBlocksPerTick;
+    }
+
+    public int getPasteMaxMsPerTick() {
+        return pasteMaxMsPerTick;
+    }
+
+    public boolean isSchematicCacheEnabled() {
+        return schematicCacheEnabled;
+    }
+
+    /**
+     * Get the memory cap of the clipboard cache
+     * @return Maximum in bytes
+     */
+    public long getSchematicCacheMaxMemory() {
+        return schematicCacheMaxMemory;
+    }
+
+    public boolean isSchematicCacheWarmed() {
+        return schematicCacheWarm;
+    }
+
+    /**
+     * Get the match duration of game modes without their own
+     * @return Duration in seconds, 0 for unlimited
+     */
+    public int getMaxMatchDuration() {
+        return maxMatchDuration;
+    }
+
+    public int getDefaultRating() {
+        return defaultRating;
+    }
+
+    public int getInitialWindow() {
+        return initialWindow;
+    }
+
+    public double getWindowGrowthPerSecond() {
+        return windowGrowthPerSecond;
+    }
+
+    /**
+     * Get the widest rating window
+     * @return Window in rating points, Integer.MAX_VALUE if unbounded
+     */
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * Get the ticks between two matchmaking passes
+     */
+    public long getMatchmakingInterval() {
+        return matchmakingInterval;
+    }
+
+    public int getPartyMaxSize() {
+        return partyMaxSize;
+    }
+
+    /**
+     * Get how long a party invite stays valid
+     * @return Timeout in seconds
+     */
+    public int getPartyInviteTimeout() {
+        return partyInviteTimeout;
+    }
+
+    public int getKFactor() {
+        return kFactor;
+    }
+
+    /**
+     * Get the seconds between two metrics dumps
+     * @return Interval, 0 or less to disable the dump
+     */
+    public long getMetricsDumpInterval() {
+        return metricsDumpInterval;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+}
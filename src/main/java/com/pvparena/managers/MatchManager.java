@@ -12,81 +12,150 @@ import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 public class MatchManager {
 
     private final PVPArenaPlugin plugin;
     private final Map<UUID, Match> activeMatches;
     private final Map<UUID, UUID> playerMatches;
+    private final Set<UUID> pendingPlayers; // Matched players whose arena is still being pasted
+    private final Map<UUID, TimingWheel.Timeout> matchTimers; // Next countdown step or timeout per match
+    private final MetricsRegistry.Histogram matchDuration;
+    private final MetricsRegistry.Counter matchesDrawn;
 
     public MatchManager(PVPArenaPlugin plugin) {
         this.plugin = plugin;
         this.activeMatches = new ConcurrentHashMap<>();
         this.playerMatches = new ConcurrentHashMap<>();
+        this.pendingPlayers = ConcurrentHashMap.newKeySet();
+        this.matchTimers = new ConcurrentHashMap<>();
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.matchDuration = metrics.histogram("match_duration_seconds", "Time from match creation until it ended");
+        this.matchesDrawn = metrics.counter("matches_drawn_total", "Matches that ended without a winner");
+        metrics.gauge("matches_active", "Matches in progress", this::getActiveMatches);
+    }
+
+    /**
+     * Create a match between two teams. The arena is pasted first; the players
+     * stay where they are until it is ready.
+     * @param team1 Members of the first team
+     * @param team2 Members of the second team
+     * @param gameMode The game mode
+     */
+    public void createMatch(List<UUID> team1, List<UUID> team2, String gameMode) {
+        List<UUID> players = new ArrayList<>(team1);
+        players.addAll(team2);
+        pendingPlayers.addAll(players);
+
+        // Create arena, the match continues once the paste has finished
+        plugin.getArenaManager().createArena(gameMode)
+                .thenAccept(arena -> onArenaReady(team1, team2, gameMode, arena))
+                .exceptionally(error -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to create match", error);
+                    pendingPlayers.removeAll(players);
+                    return null;
+                });
     }
 
-    public void createMatch(Player player1, Player player2, String gameMode) {
-        // Create arena
-        Arena arena = plugin.getArenaManager().createArena(gameMode);
+    private void onArenaReady(List<UUID> team1, List<UUID> team2, String gameMode, Arena arena) {
+        pendingPlayers.removeAll(team1);
+        pendingPlayers.removeAll(team2);
+
         if (arena == null) {
-            player1.sendMessage("§cFailed to create arena!");
-            player2.sendMessage("§cFailed to create arena!");
+            sendMessage(team1, "§cFailed to create arena!");
+            sendMessage(team2, "§cFailed to create arena!");
             return;
         }
 
         // Create match
-        Match match = new Match(UUID.randomUUID(), player1, player2, arena, gameMode);
+        Match match = new Match(UUID.randomUUID(), team1, team2, arena, gameMode);
         activeMatches.put(match.getMatchId(), match);
-        playerMatches.put(player1.getUniqueId(), match.getMatchId());
-        playerMatches.put(player2.getUniqueId(), match.getMatchId());
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (UUID playerId : match.getTeam(team)) {
+                playerMatches.put(playerId, match.getMatchId());
+                plugin.getChatManager().setMatch(playerId, match.getMatchId());
+            }
+        }
 
         // Notify players - they stay where they are during this message
-        player1.sendMessage(plugin.getConfigManager().getMessage("match-found"));
-        player2.sendMessage(plugin.getConfigManager().getMessage("match-found"));
+        plugin.getConfigManager().sendMessage(match.getOnlinePlayers(), "match-found");
 
         // Wait 1 second, then teleport and start match
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            startMatch(match);
-        }, 20L);
+        schedule(match, () -> startMatch(match), 20L);
+    }
+
+    private void sendMessage(List<UUID> playerIds, String message) {
+        for (UUID playerId : playerIds) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                player.sendMessage(message);
+            }
+        }
     }
 
     private void startMatch(Match match) {
-        Player player1 = match.getPlayer1();
-        Player player2 = match.getPlayer2();
+        if (match.getState() != Match.MatchState.WAITING) {
+            return;
+        }
+
         Arena arena = match.getArena();
 
-        if (player1 == null || !player1.isOnline() || player2 == null || !player2.isOnline()) {
-            endMatch(match, null);
+        // Members who went offline in the meantime are out, a team with nobody left forfeits
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (UUID playerId : match.getTeam(team)) {
+                Player player = Bukkit.getPlayer(playerId);
+                if (player == null || !player.isOnline()) {
+                    match.eliminate(playerId);
+                    untrack(match, playerId);
+                }
+            }
+        }
+        boolean firstGone = match.isTeamEliminated(0);
+        boolean secondGone = match.isTeamEliminated(1);
+        if (firstGone || secondGone) {
+            // The team still present wins by forfeit, only a match nobody showed up for has no winner
+            endMatch(match, firstGone && secondGone ? Match.NO_WINNER : firstGone ? 1 : 0);
             return;
         }
 
         // Get spawn points from ArenaManager
         Location[] spawnPoints = plugin.getArenaManager().getSpawnPoints(arena);
 
-        Location spawn1, spawn2;
+        Location[] teamSpawns;
         if (spawnPoints != null && spawnPoints.length >= 2) {
             // Use schematic-based spawn points
-            spawn1 = spawnPoints[0];
-            spawn2 = spawnPoints[1];
+            teamSpawns = new Location[]{spawnPoints[0], spawnPoints[1]};
         } else {
             // Fallback to config-based spawn points
-            spawn1 = plugin.getConfigManager().getSpawnPoint1(arena.getCenter());
-            spawn2 = plugin.getConfigManager().getSpawnPoint2(arena.getCenter());
+            teamSpawns = new Location[]{
+                    plugin.getConfigManager().getSpawnPoint1(arena.getCenter()),
+                    plugin.getConfigManager().getSpawnPoint2(arena.getCenter())
+            };
         }
 
-        // Prepare players
-        preparePlayer(player1);
-        preparePlayer(player2);
+        // Resolve the kit once for the whole match
+        com.pvparena.models.GameMode mode = plugin.getConfigManager().getGameMode(match.getGameMode());
+        Kit kit = mode != null ? plugin.getConfigManager().getKit(mode.getKitName()) : null;
+
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (Player player : match.getOnlinePlayers(team)) {
+                // Prepare players
+                preparePlayer(player);
 
-        // Teleport players to arena NOW (not during queue)
-        player1.teleport(spawn1);
-        player2.teleport(spawn2);
+                // Teleport players to arena NOW (not during queue)
+                player.teleport(teamSpawns[team]);
 
-        // Give kits
-        giveKit(player1, match.getGameMode());
-        giveKit(player2, match.getGameMode());
+                // Give kits
+                if (kit != null) {
+                    kit.apply(player.getInventory());
+                }
+            }
+        }
 
         // Start countdown
+        match.transitionTo(Match.MatchState.COUNTDOWN);
         startCountdown(match);
     }
 
@@ -102,73 +171,101 @@ public class MatchManager {
                 player.removePotionEffect(effect.getType()));
     }
 
-    private void giveKit(Player player, String gameMode) {
-        com.pvparena.models.GameMode mode = plugin.getConfigManager().getGameMode(gameMode);
-        if (mode == null) return;
-
-        Kit kit = plugin.getConfigManager().getKit(mode.getKitName());
-        if (kit == null) return;
-
-        // Give armor
-        ItemStack[] armor = new ItemStack[4];
-        armor[3] = kit.getHelmet() != null ? new ItemStack(kit.getHelmet()) : null;
-        armor[2] = kit.getChestplate() != null ? new ItemStack(kit.getChestplate()) : null;
-        armor[1] = kit.getLeggings() != null ? new ItemStack(kit.getLeggings()) : null;
-        armor[0] = kit.getBoots() != null ? new ItemStack(kit.getBoots()) : null;
-        player.getInventory().setArmorContents(armor);
-
-        // Give items
-        for (ItemStack item : kit.getItems()) {
-            player.getInventory().addItem(item.clone());
+    /**
+     * Run the next timer of a match on the shared timing wheel, replacing the previous one
+     */
+    private void schedule(Match match, Runnable task, long delayTicks) {
+        TimingWheel.Timeout previous = matchTimers.put(match.getMatchId(),
+                plugin.getTimingWheel().schedule(task, delayTicks));
+        if (previous != null) {
+            previous.cancel();
         }
     }
 
     private void startCountdown(Match match) {
-        int countdown = plugin.getConfigManager().getCountdownDuration();
+        countdownStep(match, plugin.getConfigManager().getCountdownDuration());
+    }
 
-        for (int i = countdown; i > 0; i--) {
-            final int seconds = i;
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                Player player1 = match.getPlayer1();
-                Player player2 = match.getPlayer2();
+    /**
+     * Announce one second of the countdown, or start the match once it reaches zero.
+     * Each step schedules the next, so a match holds a single timer at a time.
+     */
+    private void countdownStep(Match match, int seconds) {
+        if (match.getState() != Match.MatchState.COUNTDOWN) {
+            return;
+        }
 
-                if (player1 != null && player1.isOnline()) {
-                    player1.sendMessage(plugin.getConfigManager().getMessage("match-start",
-                            "seconds", String.valueOf(seconds)));
-                }
-                if (player2 != null && player2.isOnline()) {
-                    player2.sendMessage(plugin.getConfigManager().getMessage("match-start",
-                            "seconds", String.valueOf(seconds)));
+        if (seconds <= 0) {
+            // Start match after countdown
+            match.transitionTo(Match.MatchState.ACTIVE);
+
+            com.pvparena.models.GameMode mode = plugin.getConfigManager().getGameMode(match.getGameMode());
+            int maxDuration = mode != null ? mode.getMaxDuration() : plugin.getConfigManager().getSnapshot().getMaxMatchDuration();
+            if (maxDuration > 0) {
+                schedule(match, () -> timeoutMatch(match), 20L * maxDuration);
+            } else {
+                matchTimers.remove(match.getMatchId());
+            }
+            return;
+        }
+
+        plugin.getConfigManager().sendMessage(match.getOnlinePlayers(), "match-start",
+                "seconds", String.valueOf(seconds));
+        schedule(match, () -> countdownStep(match, seconds - 1), 20L);
+    }
+
+    /**
+     * Resolve a match that ran past its maximum duration, either as a draw or by
+     * starting sudden death. Sudden death is bounded too, so every match ends.
+     */
+    private void timeoutMatch(Match match) {
+        com.pvparena.models.GameMode mode = plugin.getConfigManager().getGameMode(match.getGameMode());
+        boolean suddenDeath = mode != null && mode.getTimeoutResolution() == Match.TimeoutResolution.SUDDEN_DEATH;
+
+        if (suddenDeath && match.transitionTo(Match.MatchState.SUDDEN_DEATH)) {
+            int duration = plugin.getConfigManager().getSuddenDeathDuration();
+            double health = plugin.getConfigManager().getSuddenDeathHealth();
+            List<Player> fighters = new ArrayList<>();
+            for (Player player : match.getOnlinePlayers()) {
+                if (match.isAlive(player.getUniqueId())) {
+                    player.setHealth(Math.min(player.getHealth(), health));
+                    fighters.add(player);
                 }
-            }, 20L * (countdown - i));
+            }
+            plugin.getConfigManager().sendMessage(fighters, "match-sudden-death", "seconds", String.valueOf(duration));
+            schedule(match, () -> drawMatch(match), 20L * duration);
+            return;
         }
 
-        // Start match after countdown
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            match.setState(Match.MatchState.ACTIVE);
-        }, 20L * countdown);
+        drawMatch(match);
     }
 
-    public void endMatch(Match match, Player winner) {
-        if (match == null) return;
+    private void drawMatch(Match match) {
+        if (!match.getState().isFighting()) {
+            return;
+        }
 
-        match.setState(Match.MatchState.ENDED);
+        plugin.getConfigManager().sendMessage(match.getOnlinePlayers(), "match-timeout");
+        endMatch(match, Match.NO_WINNER);
+    }
 
-        Player player1 = match.getPlayer1();
-        Player player2 = match.getPlayer2();
-        Player loser = null;
+    /**
+     * End a match and send everyone still in the arena back to spawn
+     * @param winningTeam Index of the winning team, or {@link Match#NO_WINNER}
+     */
+    public void endMatch(Match match, int winningTeam) {
+        if (match == null || !match.transitionTo(Match.MatchState.ENDED)) return;
 
-        if (winner != null) {
-            loser = player1 != null && player1.equals(winner) ? player2 : player1;
+        TimingWheel.Timeout timer = matchTimers.remove(match.getMatchId());
+        if (timer != null) {
+            timer.cancel();
         }
 
-        // Send messages
-        if (winner != null && winner.isOnline()) {
-            winner.sendMessage(plugin.getConfigManager().getMessage("match-won"));
-        }
-        if (loser != null && loser.isOnline()) {
-            loser.sendMessage(plugin.getConfigManager().getMessage("match-lost"));
+        matchDuration.recordMillis(System.currentTimeMillis() - match.getStartTime());
+        if (winningTeam == Match.NO_WINNER) {
+            matchesDrawn.increment();
         }
+        plugin.getStatsManager().recordMatch(match, winningTeam);
 
         // FIXED: Teleport players to world spawn at 0, 64, 0
         Location spawn = new Location(
@@ -178,35 +275,54 @@ public class MatchManager {
                 0.5  // Center of block
         );
 
-        if (player1 != null && player1.isOnline()) {
-            player1.teleport(spawn);
-            preparePlayer(player1);
-        }
-        if (player2 != null && player2.isOnline()) {
-            player2.teleport(spawn);
-            preparePlayer(player2);
-        }
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (UUID playerId : match.getTeam(team)) {
+                // Remove from tracking
+                untrack(match, playerId);
 
-        // Remove spectator mode - both players should be in survival
-        if (loser != null && loser.isOnline()) {
-            loser.setGameMode(GameMode.SURVIVAL);
-        }
+                Player player = Bukkit.getPlayer(playerId);
+                if (player == null || !player.isOnline()) {
+                    continue;
+                }
 
-        // Remove from tracking
-        if (player1 != null) {
-            playerMatches.remove(player1.getUniqueId());
-        }
-        if (player2 != null) {
-            playerMatches.remove(player2.getUniqueId());
+                // Send messages
+                if (winningTeam != Match.NO_WINNER) {
+                    player.sendMessage(plugin.getConfigManager().getMessage(team == winningTeam ? "match-won" : "match-lost"));
+                }
+
+                // Eliminated players already left the arena
+                if (match.isAlive(playerId)) {
+                    player.teleport(spawn);
+                    preparePlayer(player);
+                }
+            }
         }
+
         activeMatches.remove(match.getMatchId());
 
-        // Delete arena after delay
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            plugin.getArenaManager().deleteArena(match.getArena());
-        }, 20L * plugin.getConfigManager().getArenaCleanupDelay());
+        // Reset the arena for reuse (or delete it after the cleanup delay)
+        plugin.getArenaManager().releaseArena(match.getArena());
     }
 
+    /**
+     * Take a player out of a match. The match ends once a whole team is out,
+     * or on the first elimination during sudden death.
+     */
+    private void eliminate(Match match, Player player) {
+        match.eliminate(player.getUniqueId());
+        untrack(match, player.getUniqueId());
+
+        int team = match.getTeamOf(player.getUniqueId());
+        if (match.isTeamEliminated(team) || match.getState() == Match.MatchState.SUDDEN_DEATH) {
+            endMatch(match, 1 - team);
+        }
+    }
+
+    private void untrack(Match match, UUID playerId) {
+        if (playerMatches.remove(playerId, match.getMatchId())) {
+            plugin.getChatManager().setMatch(playerId, null);
+        }
+    }
 
     public Match getMatch(UUID playerId) {
         UUID matchId = playerMatches.get(playerId);
@@ -214,7 +330,7 @@ public class MatchManager {
     }
 
     public boolean isInMatch(Player player) {
-        return playerMatches.containsKey(player.getUniqueId());
+        return playerMatches.containsKey(player.getUniqueId()) || pendingPlayers.contains(player.getUniqueId());
     }
 
     public int getActiveMatches() {
@@ -223,12 +339,12 @@ public class MatchManager {
 
     public void handlePlayerDeath(Player player) {
         Match match = getMatch(player.getUniqueId());
-        if (match == null || match.getState() != Match.MatchState.ACTIVE) {
+        if (match == null || !match.getState().isFighting()) {
             return;
         }
 
-        Player winner = match.getPlayer1().equals(player) ? match.getPlayer2() : match.getPlayer1();
-        endMatch(match, winner);
+        // The player respawns outside the arena
+        eliminate(match, player);
     }
 
     public void handlePlayerQuit(Player player) {
@@ -237,15 +353,19 @@ public class MatchManager {
             return;
         }
 
-        Player winner = match.getPlayer1().equals(player) ? match.getPlayer2() : match.getPlayer1();
-        endMatch(match, winner);
+        // Don't leave the player inside the arena for their next login
+        Location spawn = new Location(Bukkit.getWorlds().get(0), 0.5, 64, 0.5);
+        player.teleport(spawn);
+        preparePlayer(player);
+
+        eliminate(match, player);
     }
 
     public void cleanup() {
         for (Match match : new ArrayList<>(activeMatches.values())) {
-            endMatch(match, null);
+            endMatch(match, Match.NO_WINNER);
         }
         activeMatches.clear();
         playerMatches.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,228 @@
+package com.pvparena.managers;
+
+import com.pvparena.models.QueueEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Queue of one game mode, indexed both in join order and by rating. An entry
+ * is a solo player or a whole party.
+ *
+ * Entries are bucketed by exact rating in a sorted map, so the closest rated
+ * entries are found by walking outwards with O(log n) neighbour lookups. Inside
+ * a bucket entries stay in join order, so equally rated entries are matched
+ * first come, first served. Entries are keyed by the UUID of the player who
+ * queued, so adding and removing are O(1) apart from the rating index.
+ *
+ * The wait times of the last matched players are kept in a ring buffer for
+ * statistics. Not thread-safe, callers synchronize on the queue.
+ */
+public class MatchmakingQueue {
+
+    // Number of recent wait times kept for statistics
+    private static final int WAIT_SAMPLES = 256;
+
+    private final Map<UUID, QueueEntry> entries; // Join order
+    private final NavigableMap<Integer, Set<QueueEntry>> byRating;
+    private int playerCount;
+    private final long[] waitSamples;
+    private int waitSampleCount;
+    private int waitSampleCursor;
+
+    public MatchmakingQueue() {
+        this.entries = new LinkedHashMap<>();
+        this.byRating = new TreeMap<>();
+        this.waitSamples = new long[WAIT_SAMPLES];
+    }
+
+    /**
+     * Add an entry
+     * @return false if the player is already queued
+     */
+    public boolean add(QueueEntry entry) {
+        UUID playerId = entry.getPlayerId();
+        if (entries.containsKey(playerId)) {
+            return false;
+        }
+
+        entries.put(playerId, entry);
+        playerCount += entry.getSize();
+        byRating.computeIfAbsent(entry.getRating(), k -> new LinkedHashSet<>()).add(entry);
+        return true;
+    }
+
+    /**
+     * Remove the entry of a player
+     * @return The removed entry, or null if the player was not queued
+     */
+    public QueueEntry remove(UUID playerId) {
+        QueueEntry entry = entries.remove(playerId);
+        if (entry == null) {
+            return null;
+        }
+
+        playerCount -= entry.getSize();
+        Set<QueueEntry> bucket = byRating.get(entry.getRating());
+        bucket.remove(entry);
+        if (bucket.isEmpty()) {
+            byRating.remove(entry.getRating());
+        }
+        return entry;
+    }
+
+    /**
+     * Build two full teams around an entry from the closest rated entries inside
+     * the rating window. Buckets are walked outwards from the entry's rating and
+     * every entry that still fits joins the team with the lower rating total, so
+     * teams stay balanced. Nothing is removed from the queue.
+     * @param seeker Entry the match is built around, always placed in team 0
+     * @param window Largest accepted rating difference
+     * @param teamSize Players per team
+     * @param matched Reusable output receiving the matched entries, at least 2 * teamSize long
+     * @param teams Reusable output receiving the team (0 or 1) of each matched entry
+     * @return Number of matched entries, or 0 if no full match fits in the window
+     */
+    public int findMatch(QueueEntry seeker, int window, int teamSize, QueueEntry[] matched, int[] teams) {
+        if (seeker.getSize() > teamSize) {
+            return 0;
+        }
+
+        int rating = seeker.getRating();
+        int free0 = teamSize - seeker.getSize();
+        int free1 = teamSize;
+        long total0 = (long) rating * seeker.getSize();
+        long total1 = 0;
+
+        matched[0] = seeker;
+        teams[0] = 0;
+        int count = 1;
+
+        Map.Entry<Integer, Set<QueueEntry>> lower = byRating.floorEntry(rating);
+        Map.Entry<Integer, Set<QueueEntry>> higher = byRating.higherEntry(rating);
+        while (free0 + free1 > 0) {
+            long lowerDiff = lower != null ? (long) rating - lower.getKey() : Long.MAX_VALUE;
+            long higherDiff = higher != null ? (long) higher.getKey() - rating : Long.MAX_VALUE;
+            if (Math.min(lowerDiff, higherDiff) > window) {
+                return 0;
+            }
+
+            Set<QueueEntry> bucket;
+            if (lowerDiff <= higherDiff) {
+                bucket = lower.getValue();
+                lower = byRating.lowerEntry(lower.getKey());
+            } else {
+                bucket = higher.getValue();
+                higher = byRating.higherEntry(higher.getKey());
+            }
+
+            for (QueueEntry candidate : bucket) {
+                int size = candidate.getSize();
+                boolean fits0 = size <= free0;
+                boolean fits1 = size <= free1;
+                if (candidate == seeker || (!fits0 && !fits1)) {
+                    continue;
+                }
+
+                int team = fits0 && (!fits1 || total0 <= total1) ? 0 : 1;
+                if (team == 0) {
+                    free0 -= size;
+                    total0 += (long) candidate.getRating() * size;
+                } else {
+                    free1 -= size;
+                    total1 += (long) candidate.getRating() * size;
+                }
+
+                matched[count] = candidate;
+                teams[count] = team;
+                count++;
+
+                if (free0 + free1 == 0) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get a snapshot of all entries in join order (longest waiting first)
+     */
+    public List<QueueEntry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public boolean contains(UUID playerId) {
+        return entries.containsKey(playerId);
+    }
+
+    /**
+     * Get the number of queued entries (a party counts once)
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of queued players
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Record how long a matched entry waited
+     * @param waitTime Wait time in milliseconds
+     */
+    public void recordWaitTime(long waitTime) {
+        waitSamples[waitSampleCursor] = waitTime;
+        waitSampleCursor = (waitSampleCursor + 1) % waitSamples.length;
+        waitSampleCount = Math.min(waitSampleCount + 1, waitSamples.length);
+    }
+
+    /**
+     * Get the average wait time of the recently matched players
+     * @return Average wait time in milliseconds, or 0 if nobody was matched yet
+     */
+    public long getAverageWaitTime() {
+        if (waitSampleCount == 0) {
+            return 0;
+        }
+
+        long total = 0;
+        for (int i = 0; i < waitSampleCount; i++) {
+            total += waitSamples[i];
+        }
+        return total / waitSampleCount;
+    }
+
+    /**
+     * Get a percentile of the wait time of the recently matched players
+     * @param percentile Percentile between 0 and 1 (0.95 for p95)
+     * @return Wait time in milliseconds, or 0 if nobody was matched yet
+     */
+    public long getWaitTimePercentile(double percentile) {
+        if (waitSampleCount == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(waitSamples, waitSampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public void clear() {
+        entries.clear();
+        byRating.clear();
+        playerCount = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pvparena.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A configured message split into literal segments and placeholder slots at
+ * load time. Rendering walks the segments once and appends into a per-thread
+ * builder, so it never scans the text or translates colors again. Placeholders
+ * without a value are rendered as written, e.g. "{player}".
+ */
+public class MessageTemplate {
+
+    public static final MessageTemplate EMPTY = new MessageTemplate("");
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final String text;
+    private final String[] literals; // literals[i] comes before slot i, the last one ends the message
+    private final int[] slots; // Placeholder index of each slot
+    private final String[] placeholders; // Distinct placeholder names
+
+    /**
+     * Compile a message
+     * @param text Message with colors already translated
+     */
+    public MessageTemplate(String text) {
+        this.text = text;
+
+        List<String> literalList = new ArrayList<>();
+        List<Integer> slotList = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int start = 0;
+        int open;
+        while ((open = text.indexOf('{', start)) >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+
+            String name = text.substring(open + 1, close);
+            int index = names.indexOf(name);
+            if (index < 0) {
+                index = names.size();
+                names.add(name);
+            }
+
+            literalList.add(text.substring(start, open));
+            slotList.add(index);
+            start = close + 1;
+        }
+        literalList.add(text.substring(start));
+
+        this.literals = literalList.toArray(new String[0]);
+        this.slots = slotList.stream().mapToInt(Integer::intValue).toArray();
+        this.placeholders = names.toArray(new String[0]);
+    }
+
+    /**
+     * Render the message
+     * @param replacements Placeholder names and values, alternating
+     * @return The rendered message
+     */
+    public String render(String... replacements) {
+        if (slots.length == 0) {
+            return text;
+        }
+
+        // Resolve every placeholder once, however often it appears
+        String[] values = new String[placeholders.length];
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            for (int p = 0; p < placeholders.length; p++) {
+                if (values[p] == null && placeholders[p].equals(replacements[i])) {
+                    values[p] = replacements[i + 1];
+                    break;
+                }
+            }
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            String value = values[slots[i]];
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append('{').append(placeholders[slots[i]]).append('}');
+            }
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+    /**
+     * Check whether the message has any placeholders
+     */
+    public boolean hasPlaceholders() {
+        return slots.length > 0;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
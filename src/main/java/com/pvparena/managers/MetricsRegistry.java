@@ -0,0 +1,320 @@
+package com.pvparena.managers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lightweight metrics: counters, gauges and duration histograms. Recording is
+ * lock-free and allocation-free, so it is safe on the main thread and in hot
+ * paths; reading walks the current values and is meant for commands and dumps.
+ *
+ * Names may carry Prometheus labels, e.g. {@code main_thread_tick_seconds{subsystem="paste"}}.
+ */
+public class MetricsRegistry {
+
+    private static final String PREFIX = "pvparena_";
+
+    private final Map<String, Metric> metrics; // Full name -> metric, sorted for stable output
+
+    public MetricsRegistry() {
+        this.metrics = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Get or create a counter
+     * @param name Metric name, conventionally ending in _total
+     */
+    public Counter counter(String name, String help) {
+        return (Counter) metrics.computeIfAbsent(name, key -> new Counter(help));
+    }
+
+    /**
+     * Register a gauge read from a supplier whenever the metrics are read.
+     * The supplier may be called from any thread.
+     */
+    public void gauge(String name, String help, LongSupplier supplier) {
+        metrics.put(name, new Gauge(help, supplier));
+    }
+
+    /**
+     * Get or create a duration histogram
+     * @param name Metric name, conventionally ending in _seconds
+     */
+    public Histogram histogram(String name, String help) {
+        return (Histogram) metrics.computeIfAbsent(name, key -> new Histogram(help));
+    }
+
+    /**
+     * Render every metric in the Prometheus text format. Histograms are exported
+     * as summaries with their quantiles in seconds.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        Set<String> described = new HashSet<>();
+
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            String name = PREFIX + entry.getKey();
+            int labelStart = name.indexOf('{');
+            String baseName = labelStart >= 0 ? name.substring(0, labelStart) : name;
+            String labels = labelStart >= 0 ? name.substring(labelStart + 1, name.length() - 1) : "";
+            Metric metric = entry.getValue();
+
+            if (described.add(baseName)) {
+                out.append("# HELP ").append(baseName).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(baseName).append(' ').append(metric.type()).append('\n');
+            }
+
+            if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                    out.append(baseName).append("{quantile=\"").append(quantile).append('"');
+                    if (!labels.isEmpty()) {
+                        out.append(',').append(labels);
+                    }
+                    out.append("} ").append(seconds(histogram.getPercentile(quantile))).append('\n');
+                }
+                out.append(baseName).append("_sum").append(labelStart >= 0 ? name.substring(labelStart) : "")
+                        .append(' ').append(seconds(histogram.getSum())).append('\n');
+                out.append(baseName).append("_count").append(labelStart >= 0 ? name.substring(labelStart) : "")
+                        .append(' ').append(histogram.getCount()).append('\n');
+            } else {
+                out.append(name).append(' ').append(metric.value()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write the Prometheus text format to a file, e.g. for the node exporter's
+     * textfile collector. The file is replaced atomically so readers never see
+     * a partial dump.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, toPrometheus().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Some file systems can't replace atomically
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Describe every metric in one human readable line, durations in milliseconds
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>(metrics.size());
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            Metric metric = entry.getValue();
+            if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                lines.add(String.format(Locale.ROOT, "%s: n=%d p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                        entry.getKey(), histogram.getCount(),
+                        histogram.getPercentile(0.5) / 1000.0, histogram.getPercentile(0.95) / 1000.0,
+                        histogram.getPercentile(0.99) / 1000.0, histogram.getMax() / 1000.0));
+            } else {
+                lines.add(entry.getKey() + ": " + metric.value());
+            }
+        }
+        return lines;
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+
+    private abstract static class Metric {
+        private final String help;
+
+        Metric(String help) {
+            this.help = help;
+        }
+
+        abstract String type();
+
+        abstract long value();
+    }
+
+    /**
+     * Monotonic counter
+     */
+    public static class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        Counter(String help) {
+            super(help);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        long value() {
+            return get();
+        }
+    }
+
+    private static class Gauge extends Metric {
+        private final LongSupplier supplier;
+
+        Gauge(String help, LongSupplier supplier) {
+            super(help);
+            this.supplier = supplier;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        long value() {
+            return supplier.getAsLong();
+        }
+    }
+
+    /**
+     * Log-linear histogram of durations in microseconds, in the spirit of HdrHistogram.
+     * Every power of two is split into 16 buckets, so a percentile is off by at
+     * most 1/16 (about 6%) of its value, whatever the range.
+     */
+    public static class Histogram extends Metric {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(String help) {
+            super(help);
+        }
+
+        /**
+         * Record a duration
+         * @param micros Duration in microseconds
+         */
+        public void record(long micros) {
+            long value = Math.max(0, micros);
+            buckets.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        /**
+         * Record the time elapsed since a {@link System#nanoTime()} reading
+         */
+        public void recordSince(long startNanos) {
+            record((System.nanoTime() - startNanos) / 1000);
+        }
+
+        public void recordMillis(long millis) {
+            record(millis * 1000);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Get the sum of every recorded duration in microseconds
+         */
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Get a percentile in microseconds
+         * @param quantile Quantile between 0 and 1
+         * @return Upper bound of the bucket holding the percentile, 0 if nothing was recorded
+         */
+        public long getPercentile(double quantile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return Math.min(upperBound(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        static int index(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int shift = index / SUB_COUNT - 1;
+            int sub = index % SUB_COUNT;
+            if (shift >= 58) {
+                return Long.MAX_VALUE;
+            }
+            return ((SUB_COUNT + sub + 1L) << shift) - 1;
+        }
+
+        @Override
+        String type() {
+            return "summary";
+        }
+
+        @Override
+        long value() {
+            return getCount();
+        }
+    }
+}
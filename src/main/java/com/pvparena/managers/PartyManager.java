@@ -0,0 +1,169 @@
+package com.pvparena.managers;
+
+import com.pvparena.PVPArenaPlugin;
+import com.pvparena.models.Party;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parties let friends queue together for team game modes. A party is dequeued
+ * whenever its roster changes so the queued entry always matches the party.
+ */
+public class PartyManager {
+
+    private final PVPArenaPlugin plugin;
+    private final Map<UUID, Party> playerParties; // Member -> party
+    private final Map<UUID, Invite> invites; // Invited player -> pending invite
+
+    public PartyManager(PVPArenaPlugin plugin) {
+        this.plugin = plugin;
+        this.playerParties = new ConcurrentHashMap<>();
+        this.invites = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the party of a player
+     * @return Party, or null if the player is not in a party
+     */
+    public Party getParty(UUID playerId) {
+        return playerParties.get(playerId);
+    }
+
+    /**
+     * Invite a player into the party of the inviter, creating the party if needed
+     * @return true if the invite was sent
+     */
+    public boolean invite(Player inviter, Player target) {
+        if (inviter.equals(target) || playerParties.containsKey(target.getUniqueId())) {
+            inviter.sendMessage(plugin.getConfigManager().getMessage("party-invite-failed",
+                    "player", target.getName()));
+            return false;
+        }
+
+        Party party = playerParties.get(inviter.getUniqueId());
+        if (party != null && !party.isLeader(inviter.getUniqueId())) {
+            inviter.sendMessage(plugin.getConfigManager().getMessage("party-not-leader"));
+            return false;
+        }
+
+        if (party != null && party.size() >= getMaxSize()) {
+            inviter.sendMessage(plugin.getConfigManager().getMessage("party-full"));
+            return false;
+        }
+
+        long expiresAt = System.currentTimeMillis() + plugin.getConfigManager().getSnapshot().getPartyInviteTimeout() * 1000L;
+        invites.put(target.getUniqueId(), new Invite(inviter.getUniqueId(), expiresAt));
+
+        inviter.sendMessage(plugin.getConfigManager().getMessage("party-invite-sent", "player", target.getName()));
+        target.sendMessage(plugin.getConfigManager().getMessage("party-invite-received", "player", inviter.getName()));
+        return true;
+    }
+
+    /**
+     * Accept the pending invite of a player
+     * @return true if the player joined a party
+     */
+    public boolean accept(Player player) {
+        Invite invite = invites.remove(player.getUniqueId());
+        if (invite == null || invite.expiresAt < System.currentTimeMillis()) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-no-invite"));
+            return false;
+        }
+
+        if (playerParties.containsKey(player.getUniqueId()) || plugin.getMatchManager().isInMatch(player)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-invite-failed", "player", player.getName()));
+            return false;
+        }
+
+        Player leader = Bukkit.getPlayer(invite.leaderId);
+        Party party = playerParties.get(invite.leaderId);
+        if (leader == null || (party != null && !party.isLeader(invite.leaderId))) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-no-invite"));
+            return false;
+        }
+
+        // A leader without a party yet counts as one member
+        if ((party != null ? party.size() : 1) >= getMaxSize()) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-full"));
+            return false;
+        }
+
+        if (party == null) {
+            party = new Party(UUID.randomUUID(), invite.leaderId);
+            playerParties.put(invite.leaderId, party);
+        }
+
+        // The queued entries no longer match the roster
+        plugin.getQueueManager().removeFromQueue(leader);
+        plugin.getQueueManager().removeFromQueue(player);
+
+        party.addMember(player.getUniqueId());
+        playerParties.put(player.getUniqueId(), party);
+        broadcast(party, plugin.getConfigManager().getMessage("party-joined", "player", player.getName()));
+        return true;
+    }
+
+    /**
+     * Remove a player from their party. The party is disbanded once one member is left.
+     * @return true if the player was in a party
+     */
+    public boolean leave(Player player) {
+        Party party = playerParties.remove(player.getUniqueId());
+        if (party == null) {
+            return false;
+        }
+
+        // The queued entry no longer matches the roster
+        plugin.getQueueManager().removeFromQueue(player);
+
+        party.removeMember(player.getUniqueId());
+        player.sendMessage(plugin.getConfigManager().getMessage("party-left", "player", player.getName()));
+        broadcast(party, plugin.getConfigManager().getMessage("party-left", "player", player.getName()));
+
+        if (party.size() <= 1) {
+            for (UUID memberId : party.getMembers()) {
+                playerParties.remove(memberId, party);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send a message to every online member of a party
+     */
+    public void broadcast(Party party, String message) {
+        for (UUID memberId : party.getMembers()) {
+            Player member = Bukkit.getPlayer(memberId);
+            if (member != null) {
+                member.sendMessage(message);
+            }
+        }
+    }
+
+    public int getMaxSize() {
+        return plugin.getConfigManager().getSnapshot().getPartyMaxSize();
+    }
+
+    public int getPartyCount() {
+        return (int) playerParties.values().stream().distinct().count();
+    }
+
+    public void cleanup() {
+        playerParties.clear();
+        invites.clear();
+    }
+
+    private static class Invite {
+        private final UUID leaderId;
+        private final long expiresAt;
+
+        Invite(UUID leaderId, long expiresAt) {
+            this.leaderId = leaderId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
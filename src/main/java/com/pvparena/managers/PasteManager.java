@@ -0,0 +1,414 @@
+package com.pvparena.managers;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Writes blocks into the world in bounded slices per tick so that large
+ * arena pastes never stall the main thread.
+ *
+ * Jobs may be submitted from any thread; they are always executed and
+ * completed on the main thread by a single repeating driver task. Background
+ * jobs (clearing leftovers of a crash) only get the budget that regular jobs
+ * leave unused, so they never delay an arena a match is waiting for.
+ */
+public class PasteManager {
+
+    // How many blocks are written between two deadline checks
+    private static final int SLICE_SIZE = 256;
+
+    private final Plugin plugin;
+    private final ConfigManager configManager;
+    private final Queue<PasteJob> incoming;
+    private final Deque<PasteJob> jobs;
+    private final Queue<PasteJob> incomingBackground;
+    private final Deque<PasteJob> backgroundJobs;
+    private final AtomicInteger pendingJobs; // The queues are main thread only, metrics read this instead
+    private final BukkitTask driverTask;
+    private final MetricsRegistry.Histogram tickTime;
+    private final MetricsRegistry.Counter blocksWritten;
+    private volatile int blocksPerTick;
+    private volatile long maxNanosPerTick;
+
+    public PasteManager(Plugin plugin, ConfigManager configManager, MetricsRegistry metrics) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.incoming = new ConcurrentLinkedQueue<>();
+        this.jobs = new ArrayDeque<>();
+        this.incomingBackground = new ConcurrentLinkedQueue<>();
+        this.backgroundJobs = new ArrayDeque<>();
+        this.pendingJobs = new AtomicInteger();
+        this.tickTime = metrics.histogram("main_thread_tick_seconds{subsystem=\"paste\"}",
+                "Main thread time spent per tick by a subsystem");
+        this.blocksWritten = metrics.counter("paste_blocks_total", "Blocks written by paste jobs");
+        metrics.gauge("paste_jobs_pending", "Paste jobs waiting or in progress", this::getPendingJobs);
+
+        reloadSettings();
+
+        this.driverTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Read the per-tick budget from the config
+     */
+    public void reloadSettings() {
+        ConfigSnapshot config = configManager.getSnapshot();
+        this.blocksPerTick = Math.max(SLICE_SIZE, config.getPasteBlocksPerTick());
+        this.maxNanosPerTick = config.getPasteMaxMsPerTick() * 1_000_000L;
+    }
+
+    /**
+     * Queue a job for execution. Safe to call from any thread.
+     * @param job The job to run
+     * @return Future completed on the main thread once every block has been written
+     */
+    public CompletableFuture<Void> submit(PasteJob job) {
+        pendingJobs.incrementAndGet();
+        incoming.add(job);
+        return job.future;
+    }
+
+    /**
+     * Queue a job that only runs while no regular job is waiting. Safe to call from any thread.
+     * @param job The job to run
+     * @return Future completed on the main thread once every block has been written
+     */
+    public CompletableFuture<Void> submitBackground(PasteJob job) {
+        pendingJobs.incrementAndGet();
+        incomingBackground.add(job);
+        return job.future;
+    }
+
+    /**
+     * Get the number of jobs waiting or in progress. Safe to call from any thread.
+     * @return Pending job count
+     */
+    public int getPendingJobs() {
+        return pendingJobs.get();
+    }
+
+    /**
+     * Stop the driver task and drop all pending jobs
+     */
+    public void shutdown() {
+        driverTask.cancel();
+        incoming.clear();
+        jobs.clear();
+        incomingBackground.clear();
+        backgroundJobs.clear();
+        pendingJobs.set(0);
+    }
+
+    private void tick() {
+        PasteJob submitted;
+        while ((submitted = incoming.poll()) != null) {
+            jobs.add(submitted);
+        }
+        while ((submitted = incomingBackground.poll()) != null) {
+            backgroundJobs.add(submitted);
+        }
+
+        if (jobs.isEmpty() && backgroundJobs.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + maxNanosPerTick;
+        int limit = blocksPerTick;
+        int budget = runJobs(jobs, limit, deadline);
+        if (budget > 0 && System.nanoTime() < deadline) {
+            budget = runJobs(backgroundJobs, budget, deadline);
+        }
+
+        blocksWritten.add(limit - Math.max(0, budget));
+        tickTime.recordSince(start);
+    }
+
+    /**
+     * Step the jobs of one queue until the budget or the deadline is used up
+     * @return Budget left
+     */
+    private int runJobs(Deque<PasteJob> queue, int budget, long deadline) {
+        // Jobs run in submission order so the oldest arena is ready first
+        while (budget > 0 && !queue.isEmpty()) {
+            PasteJob job = queue.peek();
+
+            try {
+                budget -= job.step(Math.min(budget, SLICE_SIZE));
+                if (job.isDone()) {
+                    queue.poll();
+                    pendingJobs.decrementAndGet();
+                    job.finish();
+                    job.future.complete(null);
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Paste job failed", e);
+                // The job may already be dequeued if finishing it failed
+                if (queue.peek() == job) {
+                    queue.poll();
+                    pendingJobs.decrementAndGet();
+                }
+                job.future.completeExceptionally(e);
+                continue;
+            }
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * Pack block coordinates into a single long (26 bits x, 26 bits z, 12 bits y)
+     */
+    public static long packPosition(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    /**
+     * A unit of block work that can be resumed across ticks
+     */
+    public abstract static class PasteJob {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * Write up to {@code maxBlocks} blocks
+         * @param maxBlocks Maximum number of blocks to write in this step
+         * @return Number of blocks written
+         */
+        protected abstract int step(int maxBlocks);
+
+        /**
+         * @return true once every block of this job has been written
+         */
+        protected abstract boolean isDone();
+
+        /**
+         * Called once on the main thread after the last step
+         */
+        protected void finish() {
+        }
+    }
+
+    /**
+     * Pastes a clipboard layer by layer (bottom up), placing the clipboard
+     * origin at the target position like a WorldEdit paste does
+     */
+    public static class ClipboardPasteJob extends PasteJob {
+        private final Plugin plugin;
+        private final Clipboard clipboard;
+        private final World world;
+        private final BlockVector3 min;
+        private final int offsetX;
+        private final int offsetY;
+        private final int offsetZ;
+        private final int width;
+        private final int length;
+        private final long volume;
+        private final Map<BlockState, BlockData> palette;
+        private final List<BlockVector3> tileEntities;
+        private long cursor;
+
+        public ClipboardPasteJob(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to) {
+            this.plugin = plugin;
+            this.clipboard = clipboard;
+            this.world = world;
+            this.min = clipboard.getMinimumPoint();
+
+            BlockVector3 origin = clipboard.getOrigin();
+            this.offsetX = to.getX() - origin.getX();
+            this.offsetY = to.getY() - origin.getY();
+            this.offsetZ = to.getZ() - origin.getZ();
+
+            BlockVector3 dimensions = clipboard.getDimensions();
+            this.width = dimensions.getX();
+            this.length = dimensions.getZ();
+            this.volume = (long) width * dimensions.getY() * length;
+            this.palette = new HashMap<>();
+            this.tileEntities = new ArrayList<>();
+        }
+
+        @Override
+        protected int step(int maxBlocks) {
+            int written = 0;
+            long layerSize = (long) width * length;
+
+            while (written < maxBlocks && cursor < volume) {
+                int x = (int) (cursor % width);
+                int z = (int) ((cursor / width) % length);
+                int y = (int) (cursor / layerSize);
+                cursor++;
+
+                BlockVector3 point = min.add(x, y, z);
+                BaseBlock block = clipboard.getFullBlock(point);
+
+                written++;
+                if (block.hasNbtData()) {
+                    // Blocks with NBT (chests, signs...) are pasted through WorldEdit at the end, they still use up the slice
+                    tileEntities.add(point);
+                    continue;
+                }
+
+                BlockData data = palette.computeIfAbsent(block.toImmutableState(), BukkitAdapter::adapt);
+                world.getBlockAt(point.getX() + offsetX, point.getY() + offsetY, point.getZ() + offsetZ)
+                        .setBlockData(data, false);
+            }
+
+            return written;
+        }
+
+        @Override
+        protected boolean isDone() {
+            return cursor >= volume;
+        }
+
+        @Override
+        protected void finish() {
+            if (tileEntities.isEmpty()) {
+                return;
+            }
+
+            try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(world))) {
+                for (BlockVector3 point : tileEntities) {
+                    editSession.setBlock(point.add(offsetX, offsetY, offsetZ), clipboard.getFullBlock(point));
+                }
+            } catch (WorldEditException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to paste tile entities", e);
+            }
+        }
+    }
+
+    /**
+     * Writes an explicit list of block states, used to undo the changes made in an arena
+     */
+    public static class BlockRestoreJob extends PasteJob {
+        private final World world;
+        private final long[] positions;
+        private final BlockData[] blocks;
+        private int cursor;
+
+        public BlockRestoreJob(World world, long[] positions, BlockData[] blocks) {
+            this.world = world;
+            this.positions = positions;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected int step(int maxBlocks) {
+            int end = Math.min(positions.length, cursor + maxBlocks);
+            int written = end - cursor;
+
+            for (; cursor < end; cursor++) {
+                long packed = positions[cursor];
+                world.getBlockAt(unpackX(packed), unpackY(packed), unpackZ(packed)).setBlockData(blocks[cursor], false);
+            }
+
+            return written;
+        }
+
+        @Override
+        protected boolean isDone() {
+            return cursor >= positions.length;
+        }
+
+        public int getBlockCount() {
+            return positions.length;
+        }
+    }
+
+    /**
+     * Replaces every block of a cuboid with air, top layer first so nothing is
+     * left floating. Used to clear arenas orphaned by a restart or crash.
+     */
+    public static class RegionClearJob extends PasteJob {
+        private final World world;
+        private final int minX;
+        private final int minZ;
+        private final int maxY;
+        private final int width;
+        private final int length;
+        private final long volume;
+        private final BlockData air;
+        private long cursor;
+
+        /**
+         * @param region {minX, minY, minZ, maxX, maxY, maxZ}, clamped to the world height
+         */
+        public RegionClearJob(World world, int[] region) {
+            this.world = world;
+            this.minX = region[0];
+            this.minZ = region[2];
+            int minY = Math.max(region[1], world.getMinHeight());
+            this.maxY = Math.min(region[4], world.getMaxHeight() - 1);
+            this.width = region[3] - region[0] + 1;
+            this.length = region[5] - region[2] + 1;
+            this.volume = maxY >= minY ? (long) width * length * (maxY - minY + 1) : 0;
+            this.air = Bukkit.createBlockData(Material.AIR);
+        }
+
+        @Override
+        protected int step(int maxBlocks) {
+            long layerSize = (long) width * length;
+            int visited = 0;
+
+            // Every visited block counts against the budget, reading an unloaded chunk is not free
+            while (visited < maxBlocks && cursor < volume) {
+                int x = (int) (cursor % width);
+                int z = (int) ((cursor / width) % length);
+                int y = maxY - (int) (cursor / layerSize);
+                cursor++;
+                visited++;
+
+                Block block = world.getBlockAt(minX + x, y, minZ + z);
+                if (!block.getType().isAir()) {
+                    block.setBlockData(air, false);
+                }
+            }
+
+            return visited;
+        }
+
+        @Override
+        protected boolean isDone() {
+            return cursor >= volume;
+        }
+    }
+}
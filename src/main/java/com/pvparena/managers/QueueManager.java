@@ -1,89 +1,356 @@
 package com.pvparena.managers;
 
 import com.pvparena.PVPArenaPlugin;
+import com.pvparena.models.GameMode;
+import com.pvparena.models.Party;
+import com.pvparena.models.QueueEntry;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+/**
+ * Rating-based matchmaking. Solo players and parties wait in a
+ * {@link MatchmakingQueue} per game mode and are matched by a periodic batch
+ * pass: the longest waiting entries go first and two teams of the mode's team
+ * size are filled with the closest rated entries inside their rating window,
+ * which widens the longer they wait.
+ *
+ * Every game mode queue is guarded by its own monitor, so joining one mode
+ * never waits on another. Matches are created after the queue lock is released.
+ */
 public class QueueManager {
 
     private final PVPArenaPlugin plugin;
-    private final Map<String, Queue<Player>> queues;
-    private final Map<UUID, String> playerQueues;
+    private final Map<String, MatchmakingQueue> queues;
+    private final Map<UUID, QueueEntry> playerQueues; // Every queued player -> their entry
+    private volatile RatingProvider ratingProvider;
+    private volatile Consumer<String> sizeListener; // Told the game mode whose queue size changed
+    private BukkitTask matchmakingTask;
+    private final MetricsRegistry.Histogram waitTime;
+    private final MetricsRegistry.Histogram matchmakingTickTime;
+    private final MetricsRegistry.Counter matchesFound;
+
+    // Matchmaking settings
+    private volatile int defaultRating;
+    private volatile int initialWindow;
+    private volatile double windowGrowthPerSecond;
+    private volatile int maxWindow;
 
     public QueueManager(PVPArenaPlugin plugin) {
         this.plugin = plugin;
         this.queues = new ConcurrentHashMap<>();
         this.playerQueues = new ConcurrentHashMap<>();
-        
+        this.ratingProvider = (player, gameMode) -> defaultRating;
+        this.sizeListener = gameMode -> { };
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.waitTime = metrics.histogram("queue_wait_seconds", "Time a queue entry waited before being matched");
+        this.matchmakingTickTime = metrics.histogram("main_thread_tick_seconds{subsystem=\"matchmaking\"}",
+                "Main thread time spent per tick by a subsystem");
+        this.matchesFound = metrics.counter("matches_found_total", "Matches formed by the matchmaking pass");
+        metrics.gauge("queued_players", "Players waiting in any queue", this::getTotalInQueue);
+
         // Initialize queues for each game mode
         for (String gameMode : plugin.getConfigManager().getGameModes().keySet()) {
-            queues.put(gameMode, new LinkedList<>());
+            queues.put(gameMode, new MatchmakingQueue());
+        }
+
+        loadSettings();
+    }
+
+    /**
+     * Read the matchmaking settings from the config and (re)start the batch pass
+     */
+    public synchronized void loadSettings() {
+        ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
+        this.defaultRating = config.getDefaultRating();
+        this.initialWindow = config.getInitialWindow();
+        this.windowGrowthPerSecond = config.getWindowGrowthPerSecond();
+        this.maxWindow = config.getMaxWindow();
+
+        reconcileQueues();
+
+        if (matchmakingTask != null) {
+            matchmakingTask.cancel();
         }
+        long interval = config.getMatchmakingInterval();
+        matchmakingTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::runMatchmaking, interval, interval);
+    }
+
+    /**
+     * Bring the queues in line with the current game modes. New modes get a queue
+     * right away, removed modes close their queue, and entries that no longer fit
+     * their mode's team size are dequeued. Everyone dropped is told why.
+     */
+    private void reconcileQueues() {
+        Map<String, GameMode> gameModes = plugin.getConfigManager().getGameModes();
+        for (String gameMode : gameModes.keySet()) {
+            queues.putIfAbsent(gameMode, new MatchmakingQueue());
+        }
+
+        List<QueueEntry> dropped = new ArrayList<>();
+        for (Iterator<Map.Entry<String, MatchmakingQueue>> it = queues.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, MatchmakingQueue> entry = it.next();
+            GameMode mode = gameModes.get(entry.getKey());
+            MatchmakingQueue queue = entry.getValue();
+            int droppedBefore = dropped.size();
+            synchronized (queue) {
+                for (QueueEntry queued : queue.getEntries()) {
+                    if (mode == null || queued.getSize() > mode.getTeamSize()) {
+                        queue.remove(queued.getPlayerId());
+                        dropped.add(queued);
+                    }
+                }
+            }
+            if (dropped.size() > droppedBefore) {
+                sizeListener.accept(entry.getKey());
+            }
+            if (mode == null) {
+                it.remove();
+            }
+        }
+
+        List<Player> notified = new ArrayList<>();
+        for (QueueEntry entry : dropped) {
+            release(entry);
+            for (UUID memberId : entry.getMembers()) {
+                Player member = Bukkit.getPlayer(memberId);
+                if (member != null) {
+                    notified.add(member);
+                }
+            }
+        }
+        plugin.getConfigManager().sendMessage(notified, "queue-closed");
+    }
+
+    /**
+     * Set the listener told whenever the size of a queue changes. It may be
+     * called from any thread and once per change, so it should only mark state.
+     * @param sizeListener Receives the game mode whose queue changed
+     */
+    public void setSizeListener(Consumer<String> sizeListener) {
+        this.sizeListener = sizeListener;
     }
 
-    public synchronized boolean addToQueue(Player player, String gameMode) {
-        // Check if player is already in a queue
-        if (playerQueues.containsKey(player.getUniqueId())) {
+    /**
+     * Replace the source of player ratings (defaults to matchmaking.default-rating for everyone)
+     * @param ratingProvider The new rating provider
+     */
+    public void setRatingProvider(RatingProvider ratingProvider) {
+        this.ratingProvider = ratingProvider;
+    }
+
+    /**
+     * Queue a player, together with their party if they lead one
+     * @return true if the player (and party) joined the queue
+     */
+    public boolean addToQueue(Player player, String gameMode) {
+        MatchmakingQueue queue = queues.get(gameMode);
+        GameMode mode = plugin.getConfigManager().getGameMode(gameMode);
+        if (queue == null || mode == null) {
             return false;
         }
-        
-        // Check if player is already in a match
-        if (plugin.getMatchManager().isInMatch(player)) {
+
+        Party party = plugin.getPartyManager().getParty(player.getUniqueId());
+        List<UUID> members = party != null ? party.getMembers() : Collections.singletonList(player.getUniqueId());
+
+        if (party != null && !party.isLeader(player.getUniqueId())) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-not-leader"));
             return false;
         }
-        
-        Queue<Player> queue = queues.get(gameMode);
-        if (queue == null) {
+        if (members.size() > mode.getTeamSize()) {
+            player.sendMessage(plugin.getConfigManager().getMessage("party-too-large",
+                    "size", String.valueOf(mode.getTeamSize())));
             return false;
         }
-        
-        // Add player to queue
-        queue.add(player);
-        playerQueues.put(player.getUniqueId(), gameMode);
-        
-        // Check for match
-        checkForMatch(gameMode);
-        
+
+        // Every member must be online and free
+        int ratingTotal = 0;
+        for (UUID memberId : members) {
+            Player member = Bukkit.getPlayer(memberId);
+            if (member == null) {
+                String name = Bukkit.getOfflinePlayer(memberId).getName();
+                player.sendMessage(plugin.getConfigManager().getMessage("party-member-offline",
+                        "player", name != null ? name : memberId.toString()));
+                return false;
+            }
+            if (plugin.getMatchManager().isInMatch(member)) {
+                player.sendMessage(plugin.getConfigManager().getMessage("party-member-in-match", "player", member.getName()));
+                return false;
+            }
+            ratingTotal += ratingProvider.getRating(member, gameMode);
+        }
+
+        QueueEntry entry = new QueueEntry(members, gameMode, ratingTotal / members.size(), System.currentTimeMillis());
+
+        // Claiming the members first makes joining two queues at once impossible
+        for (int i = 0; i < members.size(); i++) {
+            if (playerQueues.putIfAbsent(members.get(i), entry) != null) {
+                for (int j = 0; j < i; j++) {
+                    playerQueues.remove(members.get(j), entry);
+                }
+                Player member = Bukkit.getPlayer(members.get(i));
+                player.sendMessage(plugin.getConfigManager().getMessage("party-member-in-queue",
+                        "player", member != null ? member.getName() : members.get(i).toString()));
+                return false;
+            }
+        }
+
+        // Add entry to queue, the next matchmaking pass matches it
+        synchronized (queue) {
+            queue.add(entry);
+        }
+        sizeListener.accept(gameMode);
+        for (UUID memberId : members) {
+            plugin.getChatManager().setQueue(memberId, gameMode);
+        }
+
+        // The player who queued is notified by the caller
+        List<Player> notified = new ArrayList<>(members.size());
+        for (int i = 1; i < members.size(); i++) {
+            Player member = Bukkit.getPlayer(members.get(i));
+            if (member != null) {
+                notified.add(member);
+            }
+        }
+        plugin.getConfigManager().sendMessage(notified, "queue-joined", "gamemode", mode.getDisplayName());
         return true;
     }
 
-    public synchronized boolean removeFromQueue(Player player) {
-        String gameMode = playerQueues.remove(player.getUniqueId());
-        if (gameMode == null) {
+    /**
+     * Remove a player from the queue. A queued party leaves the queue as a whole.
+     * @return true if the player was queued
+     */
+    public boolean removeFromQueue(Player player) {
+        QueueEntry entry = playerQueues.get(player.getUniqueId());
+        if (entry == null) {
             return false;
         }
-        
-        Queue<Player> queue = queues.get(gameMode);
+
+        release(entry);
+
+        MatchmakingQueue queue = queues.get(entry.getGameMode());
         if (queue != null) {
-            queue.remove(player);
+            synchronized (queue) {
+                queue.remove(entry.getPlayerId());
+            }
+            sizeListener.accept(entry.getGameMode());
             return true;
         }
-        
+
         return false;
     }
 
-    private void checkForMatch(String gameMode) {
-        Queue<Player> queue = queues.get(gameMode);
-        if (queue == null || queue.size() < 2) {
-            return;
+    /**
+     * Forget the members of an entry that left the queue. Members that already
+     * belong to a newer entry keep it.
+     */
+    private void release(QueueEntry entry) {
+        for (UUID memberId : entry.getMembers()) {
+            if (playerQueues.remove(memberId, entry)) {
+                plugin.getChatManager().setQueue(memberId, null);
+            }
         }
-        
-        // Get two players from queue
-        Player player1 = queue.poll();
-        Player player2 = queue.poll();
-        
-        if (player1 == null || player2 == null) {
-            return;
+    }
+
+    /**
+     * Run one matchmaking pass over every game mode
+     */
+    public void runMatchmaking() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, MatchmakingQueue> entry : queues.entrySet()) {
+            GameMode mode = plugin.getConfigManager().getGameMode(entry.getKey());
+            if (mode == null) {
+                continue;
+            }
+
+            List<List<UUID>[]> matches;
+            boolean changed;
+            synchronized (entry.getValue()) {
+                int before = entry.getValue().getPlayerCount();
+                matches = findMatches(entry.getKey(), mode.getTeamSize(), entry.getValue(), now);
+                changed = entry.getValue().getPlayerCount() != before;
+            }
+            if (changed) {
+                sizeListener.accept(entry.getKey());
+            }
+
+            // Match creation may paste an arena, so it never runs under the queue lock
+            matchesFound.add(matches.size());
+            for (List<UUID>[] teams : matches) {
+                plugin.getMatchManager().createMatch(teams[0], teams[1], entry.getKey());
+            }
+        }
+        matchmakingTickTime.recordSince(start);
+    }
+
+    /**
+     * Build the matches of one game mode and remove the matched entries from the
+     * queue. Scratch arrays are shared by the whole pass so trying an entry that
+     * finds no match allocates nothing. Callers hold the queue lock.
+     * @return Rosters of both teams for every match
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<UUID>[]> findMatches(String gameMode, int teamSize, MatchmakingQueue queue, long now) {
+        List<List<UUID>[]> matches = new ArrayList<>();
+        if (queue.getPlayerCount() < 2 * teamSize) {
+            return matches;
+        }
+
+        QueueEntry[] matched = new QueueEntry[2 * teamSize];
+        int[] teams = new int[2 * teamSize];
+
+        for (QueueEntry entry : queue.getEntries()) {
+            UUID playerId = entry.getPlayerId();
+            if (!queue.contains(playerId)) {
+                // Already matched earlier in this pass
+                continue;
+            }
+
+            // Drop entries with offline members or that left while being added
+            if (!entry.isOnline() || playerQueues.get(playerId) != entry) {
+                queue.remove(playerId);
+                release(entry);
+                continue;
+            }
+
+            int count = queue.findMatch(entry, getRatingWindow(entry, now), teamSize, matched, teams);
+            if (count == 0) {
+                continue;
+            }
+
+            List<UUID>[] rosters = new List[]{new ArrayList<UUID>(teamSize), new ArrayList<UUID>(teamSize)};
+            for (int i = 0; i < count; i++) {
+                QueueEntry member = matched[i];
+                queue.remove(member.getPlayerId());
+                queue.recordWaitTime(member.getWaitTime(now));
+                waitTime.recordMillis(member.getWaitTime(now));
+                release(member);
+                rosters[teams[i]].addAll(member.getMembers());
+                matched[i] = null;
+            }
+            matches.add(rosters);
+
+            if (queue.getPlayerCount() < 2 * teamSize) {
+                break;
+            }
         }
-        
-        // Remove from tracking
-        playerQueues.remove(player1.getUniqueId());
-        playerQueues.remove(player2.getUniqueId());
-        
-        // Create match
-        plugin.getMatchManager().createMatch(player1, player2, gameMode);
+        return matches;
+    }
+
+    /**
+     * Get the largest rating difference an entry accepts
+     * @param now Current time in milliseconds
+     * @return Rating window, widened by the time spent waiting
+     */
+    private int getRatingWindow(QueueEntry entry, long now) {
+        double window = initialWindow + windowGrowthPerSecond * entry.getWaitTime(now) / 1000.0;
+        return (int) Math.min(window, maxWindow);
     }
 
     public boolean isInQueue(Player player) {
@@ -91,20 +358,80 @@ public class QueueManager {
     }
 
     public String getQueueMode(Player player) {
-        return playerQueues.get(player.getUniqueId());
+        QueueEntry entry = playerQueues.get(player.getUniqueId());
+        return entry != null ? entry.getGameMode() : null;
     }
 
+    /**
+     * Get the number of players queued for a game mode
+     * @param gameMode The game mode
+     * @return Queued players, party members included
+     */
     public int getQueueSize(String gameMode) {
-        Queue<Player> queue = queues.get(gameMode);
-        return queue != null ? queue.size() : 0;
+        MatchmakingQueue queue = queues.get(gameMode);
+        if (queue == null) {
+            return 0;
+        }
+
+        synchronized (queue) {
+            return queue.getPlayerCount();
+        }
+    }
+
+    /**
+     * Get the average time recently matched players of a game mode waited in the queue
+     * @param gameMode The game mode
+     * @return Average wait time in milliseconds, or 0 if nobody was matched yet
+     */
+    public long getAverageWaitTime(String gameMode) {
+        MatchmakingQueue queue = queues.get(gameMode);
+        if (queue == null) {
+            return 0;
+        }
+
+        synchronized (queue) {
+            return queue.getAverageWaitTime();
+        }
+    }
+
+    /**
+     * Get the 95th percentile of the time recently matched players of a game mode waited in the queue
+     * @param gameMode The game mode
+     * @return p95 wait time in milliseconds, or 0 if nobody was matched yet
+     */
+    public long getP95WaitTime(String gameMode) {
+        MatchmakingQueue queue = queues.get(gameMode);
+        if (queue == null) {
+            return 0;
+        }
+
+        synchronized (queue) {
+            return queue.getWaitTimePercentile(0.95);
+        }
+    }
+
+    /**
+     * Get the game modes that have a queue
+     * @return Game mode names
+     */
+    public Set<String> getGameModes() {
+        return Collections.unmodifiableSet(queues.keySet());
     }
 
     public int getTotalInQueue() {
         return playerQueues.size();
     }
 
-    public void cleanup() {
-        queues.clear();
+    public synchronized void cleanup() {
+        if (matchmakingTask != null) {
+            matchmakingTask.cancel();
+        }
+        for (Map.Entry<String, MatchmakingQueue> entry : queues.entrySet()) {
+            synchronized (entry.getValue()) {
+                entry.getValue().clear();
+            }
+            sizeListener.accept(entry.getKey());
+        }
         playerQueues.clear();
     }
 }
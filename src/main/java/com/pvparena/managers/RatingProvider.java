@@ -0,0 +1,18 @@
+package com.pvparena.managers;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Supplies the matchmaking rating of a player
+ */
+@FunctionalInterface
+public interface RatingProvider {
+
+    /**
+     * Get the rating of a player in a game mode
+     * @param player The player
+     * @param gameMode The game mode
+     * @return Rating, higher is better
+     */
+    int getRating(Player player, String gameMode);
+}
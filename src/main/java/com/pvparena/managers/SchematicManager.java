@@ -1,17 +1,10 @@
 package com.pvparena.managers;
 
-import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.WorldEditException;
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
-import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.session.ClipboardHolder;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
@@ -20,8 +13,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -29,16 +31,45 @@ import java.util.logging.Level;
  */
 public class SchematicManager {
 
+    private static final int BYTES_PER_BLOCK = 8;
+
     private final Plugin plugin;
+    private final ConfigManager configManager;
+    private final PasteManager pasteManager;
     private final File schematicsFolder;
     private final List<File> arenaSchematicFiles;
     private final Random random;
-
-    public SchematicManager(Plugin plugin) {
+    private final MetricsRegistry.Histogram decodeTime;
+    private final MetricsRegistry.Histogram pasteTime;
+    private final MetricsRegistry.Counter cacheHits;
+    private final MetricsRegistry.Counter cacheMisses;
+
+    // Decoded clipboards keyed by absolute path, in access order for LRU eviction
+    private final LinkedHashMap<String, CachedClipboard> clipboardCache;
+    // Footprint of every schematic decoded so far, keyed by absolute path; outlives the clipboard cache
+    private final Map<String, Footprint> footprints;
+    private long cacheMemoryUsage;
+    private volatile boolean cacheEnabled;
+    private volatile long cacheMaxMemory;
+
+    public SchematicManager(Plugin plugin, ConfigManager configManager, PasteManager pasteManager, MetricsRegistry metrics) {
         this.plugin = plugin;
+        this.configManager = configManager;
+        this.pasteManager = pasteManager;
         this.schematicsFolder = new File(plugin.getDataFolder(), "arenas");
         this.arenaSchematicFiles = new ArrayList<>();
         this.random = new Random();
+        this.clipboardCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.footprints = new ConcurrentHashMap<>();
+        this.decodeTime = metrics.histogram("schematic_decode_seconds", "Time spent decoding a schematic file");
+        this.pasteTime = metrics.histogram("schematic_paste_seconds", "Time from a paste request until every block is written");
+        this.cacheHits = metrics.counter("schematic_cache_hits_total", "Clipboards served from the cache");
+        this.cacheMisses = metrics.counter("schematic_cache_misses_total", "Clipboards decoded from disk");
+        metrics.gauge("schematic_cache_bytes", "Estimated memory held by cached clipboards", () -> {
+            synchronized (clipboardCache) {
+                return cacheMemoryUsage;
+            }
+        });
 
         // Create arenas folder if it doesn't exist
         if (!schematicsFolder.exists()) {
@@ -47,6 +78,8 @@ public class SchematicManager {
         }
 
         loadSchematicFiles();
+        loadCacheSettings();
+        warmCache(false);
     }
 
     /**
@@ -70,11 +103,175 @@ public class SchematicManager {
     }
 
     /**
-     * Reload schematic files from disk
+     * Reload schematic files from disk. New or changed schematics are measured
+     * (and the cache warmed) in an async task.
+     * @return Future completed on the main thread once every schematic is measured,
+     *         after which {@link #getMaxFootprint()} no longer decodes anything
      */
-    public void reload() {
+    public CompletableFuture<Void> reload() {
         loadSchematicFiles();
+        invalidateCache();
+        loadCacheSettings();
         plugin.getLogger().info("Reloaded " + arenaSchematicFiles.size() + " arena schematics");
+
+        Set<String> paths = new HashSet<>();
+        for (File file : arenaSchematicFiles) {
+            paths.add(file.getAbsolutePath());
+        }
+        footprints.keySet().retainAll(paths);
+        return warmCache(true);
+    }
+
+    /**
+     * Read clipboard cache settings from the config
+     */
+    private void loadCacheSettings() {
+        ConfigSnapshot config = configManager.getSnapshot();
+        this.cacheEnabled = config.isSchematicCacheEnabled();
+        this.cacheMaxMemory = config.getSchematicCacheMaxMemory();
+    }
+
+    /**
+     * Decode every known schematic into the clipboard cache so the first
+     * matches after startup or reload don't pay the decode cost. Decoding
+     * runs in an async task; pastes requested meanwhile decode on their own.
+     * @param measure Also decode schematics whose footprint is unknown when the cache is not warmed
+     * @return Future completed on the main thread once every schematic was visited
+     */
+    private CompletableFuture<Void> warmCache(boolean measure) {
+        boolean warm = cacheEnabled && configManager.getSnapshot().isSchematicCacheWarmed();
+        if (!warm && !measure) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // The file list is replaced on reload, warm a snapshot of it
+        List<File> files = new ArrayList<>(arenaSchematicFiles);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            for (File file : files) {
+                if (warm || getKnownFootprint(file) < 0) {
+                    getClipboard(file);
+                }
+            }
+
+            if (warm) {
+                synchronized (clipboardCache) {
+                    plugin.getLogger().info("Schematic cache warmed: " + clipboardCache.size() + " clipboard(s), ~" +
+                            (cacheMemoryUsage / 1024) + " KB");
+                }
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> result.complete(null));
+        });
+        return result;
+    }
+
+    /**
+     * Drop every cached clipboard
+     */
+    public void invalidateCache() {
+        synchronized (clipboardCache) {
+            clipboardCache.clear();
+            cacheMemoryUsage = 0;
+        }
+    }
+
+    /**
+     * Get the decoded clipboard for a schematic file, reading it from disk only
+     * when it is not cached or the file changed since it was cached
+     * @param schematicFile The schematic file
+     * @return Decoded clipboard, or null on failure
+     */
+    public Clipboard getClipboard(File schematicFile) {
+        String key = schematicFile.getAbsolutePath();
+        long lastModified = schematicFile.lastModified();
+        long size = schematicFile.length();
+
+        if (cacheEnabled) {
+            synchronized (clipboardCache) {
+                CachedClipboard cached = clipboardCache.get(key);
+                if (cached != null) {
+                    if (cached.lastModified == lastModified && cached.size == size) {
+                        cacheHits.increment();
+                        return cached.clipboard;
+                    }
+                    // File changed on disk, drop the stale copy
+                    clipboardCache.remove(key);
+                    cacheMemoryUsage -= cached.estimatedBytes;
+                }
+            }
+        }
+
+        cacheMisses.increment();
+        long start = System.nanoTime();
+        Clipboard clipboard = readClipboard(schematicFile);
+        decodeTime.recordSince(start);
+        if (clipboard != null) {
+            BlockVector3 dimensions = clipboard.getDimensions();
+            footprints.put(key, new Footprint(lastModified, size, Math.max(dimensions.getX(), dimensions.getZ())));
+        }
+        if (clipboard == null || !cacheEnabled) {
+            return clipboard;
+        }
+
+        long estimatedBytes = estimateMemory(clipboard);
+        if (estimatedBytes > cacheMaxMemory) {
+            plugin.getLogger().warning("Schematic '" + schematicFile.getName() +
+                    "' is larger than the clipboard cache limit, it will be decoded on every paste");
+            return clipboard;
+        }
+
+        synchronized (clipboardCache) {
+            CachedClipboard previous = clipboardCache.put(key,
+                    new CachedClipboard(clipboard, lastModified, size, estimatedBytes));
+            if (previous != null) {
+                cacheMemoryUsage -= previous.estimatedBytes;
+            }
+            cacheMemoryUsage += estimatedBytes;
+            evictToLimit();
+        }
+
+        return clipboard;
+    }
+
+    /**
+     * Evict least recently used clipboards until the cache fits its memory cap.
+     * Must be called while holding the cache lock.
+     */
+    private void evictToLimit() {
+        Iterator<Map.Entry<String, CachedClipboard>> iterator = clipboardCache.entrySet().iterator();
+        while (cacheMemoryUsage > cacheMaxMemory && iterator.hasNext()) {
+            CachedClipboard eldest = iterator.next().getValue();
+            iterator.remove();
+            cacheMemoryUsage -= eldest.estimatedBytes;
+        }
+    }
+
+    /**
+     * Rough in-memory size of a decoded clipboard (one block state reference per block)
+     */
+    private long estimateMemory(Clipboard clipboard) {
+        BlockVector3 dimensions = clipboard.getDimensions();
+        return (long) dimensions.getX() * dimensions.getY() * dimensions.getZ() * BYTES_PER_BLOCK;
+    }
+
+    /**
+     * Decode a schematic file from disk
+     * @param schematicFile The schematic file
+     * @return Decoded clipboard, or null on failure
+     */
+    private Clipboard readClipboard(File schematicFile) {
+        ClipboardFormat format = ClipboardFormats.findByFile(schematicFile);
+        if (format == null) {
+            plugin.getLogger().warning("Unknown schematic format: " + schematicFile.getName());
+            return null;
+        }
+
+        try (ClipboardReader reader = format.getReader(new FileInputStream(schematicFile))) {
+            return reader.read();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to read schematic file: " + schematicFile.getName(), e);
+            return null;
+        }
     }
 
     /**
@@ -88,6 +285,41 @@ public class SchematicManager {
         return arenaSchematicFiles.get(random.nextInt(arenaSchematicFiles.size()));
     }
 
+    /**
+     * Get all known schematic files
+     * @return Unmodifiable list of schematic files
+     */
+    public List<File> getSchematicFiles() {
+        return Collections.unmodifiableList(arenaSchematicFiles);
+    }
+
+    /**
+     * Get the largest horizontal size (width or length) of all schematics. Footprints
+     * are remembered per file, only schematics never decoded before (or changed since)
+     * are decoded here; after the future of {@link #reload()} completes there are none.
+     * @return Largest footprint in blocks, or 0 if no schematic could be read
+     */
+    public int getMaxFootprint() {
+        int footprint = 0;
+        for (File file : arenaSchematicFiles) {
+            int known = getKnownFootprint(file);
+            if (known < 0 && getClipboard(file) != null) {
+                known = getKnownFootprint(file);
+            }
+            footprint = Math.max(footprint, known);
+        }
+        return footprint;
+    }
+
+    /**
+     * @return Remembered footprint of a schematic, or -1 if it was not decoded since it last changed
+     */
+    private int getKnownFootprint(File file) {
+        Footprint known = footprints.get(file.getAbsolutePath());
+        return known != null && known.lastModified == file.lastModified() && known.size == file.length()
+                ? known.footprint : -1;
+    }
+
     /**
      * Get a specific schematic file by name
      * @param name Name of the schematic (without extension)
@@ -105,31 +337,53 @@ public class SchematicManager {
     }
 
     /**
-     * Paste a schematic at the specified location
+     * Paste a schematic at the specified location. The clipboard is decoded off the
+     * main thread and its blocks are written over several ticks by the {@link PasteManager}.
      * @param schematicFile The schematic file to paste
      * @param location The location to paste at (will be the center bottom of the schematic)
-     * @return The dimensions of the pasted schematic (width, height, length), or null on failure
+     * @return Future completed on the main thread with the dimensions of the pasted
+     *         schematic (width, height, length), or null on failure
      */
-    public SchematicDimensions pasteSchematic(File schematicFile, Location location) {
+    public CompletableFuture<SchematicDimensions> pasteSchematic(File schematicFile, Location location) {
+        return pasteSchematic(schematicFile, location, null);
+    }
+
+    /**
+     * Paste a schematic at the specified location, telling the caller where blocks
+     * are about to be written first
+     * @param beforePaste Called off the main thread with the dimensions of the schematic
+     *                    before its first block is written, may be null
+     * @see #pasteSchematic(File, Location)
+     */
+    public CompletableFuture<SchematicDimensions> pasteSchematic(File schematicFile, Location location,
+                                                                 Consumer<SchematicDimensions> beforePaste) {
         if (schematicFile == null || !schematicFile.exists()) {
             plugin.getLogger().warning("Schematic file does not exist: " + schematicFile);
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         World world = location.getWorld();
         if (world == null) {
             plugin.getLogger().warning("World is null for location: " + location);
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
-        ClipboardFormat format = ClipboardFormats.findByFile(schematicFile);
-        if (format == null) {
-            plugin.getLogger().warning("Unknown schematic format: " + schematicFile.getName());
-            return null;
-        }
+        CompletableFuture<SchematicDimensions> result = new CompletableFuture<>();
+        long start = System.nanoTime();
 
-        try (ClipboardReader reader = format.getReader(new FileInputStream(schematicFile))) {
-            Clipboard clipboard = reader.read();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            Clipboard clipboard;
+            try {
+                clipboard = getClipboard(schematicFile);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to decode schematic: " + schematicFile.getName(), e);
+                clipboard = null;
+            }
+
+            if (clipboard == null) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> result.complete(null));
+                return;
+            }
 
             // Get schematic dimensions
             BlockVector3 dimensions = clipboard.getDimensions();
@@ -138,51 +392,54 @@ public class SchematicManager {
             int length = dimensions.getZ();
 
             // Calculate paste position (center the schematic on the X and Z axes)
-            BlockVector3 clipboardOrigin = clipboard.getOrigin();
             int pasteX = location.getBlockX() - (width / 2);
             int pasteY = location.getBlockY();
             int pasteZ = location.getBlockZ() - (length / 2);
-
-            // Create WorldEdit world and paste location
-            com.sk89q.worldedit.world.World weWorld = BukkitAdapter.adapt(world);
             BlockVector3 pasteLocation = BlockVector3.at(pasteX, pasteY, pasteZ);
 
-            // Paste the schematic
-            try (EditSession editSession = WorldEdit.getInstance().newEditSession(weWorld)) {
-                Operation operation = new ClipboardHolder(clipboard)
-                        .createPaste(editSession)
-                        .to(pasteLocation)
-                        .ignoreAirBlocks(false)
-                        .build();
+            // The clipboard origin is placed at the paste location, the written region starts at its minimum point
+            BlockVector3 minimum = pasteLocation.add(clipboard.getMinimumPoint().subtract(clipboard.getOrigin()));
+            SchematicDimensions pasted = new SchematicDimensions(width, height, length, pasteLocation, minimum);
+            if (beforePaste != null) {
+                try {
+                    beforePaste.accept(pasted);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to prepare paste of schematic: " + schematicFile.getName(), e);
+                    plugin.getServer().getScheduler().runTask(plugin, () -> result.complete(null));
+                    return;
+                }
+            }
 
-                Operations.complete(operation);
+            pasteManager.submit(new PasteManager.ClipboardPasteJob(plugin, clipboard, world, pasteLocation))
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            plugin.getLogger().log(Level.SEVERE, "Failed to paste schematic: " + schematicFile.getName(), error);
+                            result.complete(null);
+                            return;
+                        }
 
-                plugin.getLogger().info("Pasted schematic '" + schematicFile.getName() +
-                        "' at " + pasteX + ", " + pasteY + ", " + pasteZ +
-                        " (size: " + width + "x" + height + "x" + length + ")");
+                        plugin.getLogger().info("Pasted schematic '" + schematicFile.getName() +
+                                "' at " + pasteX + ", " + pasteY + ", " + pasteZ +
+                                " (size: " + width + "x" + height + "x" + length + ")");
 
-                return new SchematicDimensions(width, height, length, pasteLocation);
-            }
+                        pasteTime.recordSince(start);
+                        result.complete(pasted);
+                    });
+        });
 
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to read schematic file: " + schematicFile.getName(), e);
-            return null;
-        } catch (WorldEditException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to paste schematic: " + schematicFile.getName(), e);
-            return null;
-        }
+        return result;
     }
 
     /**
      * Paste a random schematic at the specified location
      * @param location The location to paste at
-     * @return The dimensions of the pasted schematic, or null on failure
+     * @return Future completed on the main thread with the dimensions of the pasted schematic, or null on failure
      */
-    public SchematicDimensions pasteRandomSchematic(Location location) {
+    public CompletableFuture<SchematicDimensions> pasteRandomSchematic(Location location) {
         File schematic = getRandomSchematic();
         if (schematic == null) {
             plugin.getLogger().warning("No schematics available to paste");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         return pasteSchematic(schematic, location);
     }
@@ -203,6 +460,26 @@ public class SchematicManager {
         return arenaSchematicFiles.size();
     }
 
+    /**
+     * Get the number of decoded clipboards currently cached
+     * @return Number of cached clipboards
+     */
+    public int getCachedClipboardCount() {
+        synchronized (clipboardCache) {
+            return clipboardCache.size();
+        }
+    }
+
+    /**
+     * Get the estimated memory used by cached clipboards
+     * @return Estimated size in bytes
+     */
+    public long getCacheMemoryUsage() {
+        synchronized (clipboardCache) {
+            return cacheMemoryUsage;
+        }
+    }
+
     /**
      * Get list of all schematic names
      * @return List of schematic file names
@@ -215,6 +492,38 @@ public class SchematicManager {
         return names;
     }
 
+    /**
+     * Cache entry for a decoded clipboard, tagged with the file state it was read from
+     */
+    private static class CachedClipboard {
+        private final Clipboard clipboard;
+        private final long lastModified;
+        private final long size;
+        private final long estimatedBytes;
+
+        CachedClipboard(Clipboard clipboard, long lastModified, long size, long estimatedBytes) {
+            this.clipboard = clipboard;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    /**
+     * Horizontal size of a schematic file as it was when decoded
+     */
+    private static class Footprint {
+        private final long lastModified;
+        private final long size;
+        private final int footprint;
+
+        Footprint(long lastModified, long size, int footprint) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.footprint = footprint;
+        }
+    }
+
     /**
      * Data class to hold schematic dimensions and paste location
      */
@@ -223,12 +532,14 @@ public class SchematicManager {
         private final int height;
         private final int length;
         private final BlockVector3 pasteLocation;
+        private final BlockVector3 minimumPoint;
 
-        public SchematicDimensions(int width, int height, int length, BlockVector3 pasteLocation) {
+        public SchematicDimensions(int width, int height, int length, BlockVector3 pasteLocation, BlockVector3 minimumPoint) {
             this.width = width;
             this.height = height;
             this.length = length;
             this.pasteLocation = pasteLocation;
+            this.minimumPoint = minimumPoint;
         }
 
         public int getWidth() {
@@ -247,6 +558,22 @@ public class SchematicManager {
             return pasteLocation;
         }
 
+        /**
+         * Get the lowest corner of the blocks written in the world
+         * @return Minimum block vector
+         */
+        public BlockVector3 getMinimumPoint() {
+            return minimumPoint;
+        }
+
+        /**
+         * Get the highest corner of the blocks written in the world
+         * @return Maximum block vector
+         */
+        public BlockVector3 getMaximumPoint() {
+            return minimumPoint.add(width - 1, height - 1, length - 1);
+        }
+
         /**
          * Get the center location of the schematic (useful for spawn points)
          * @return Center block vector
@@ -0,0 +1,192 @@
+package com.pvparena.managers;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out arena slots on a square spiral around the world origin.
+ *
+ * Released slots first wait in a cooldown heap ordered by the time they are
+ * ready, then move to a free-list, so allocation and release cost O(log n) in
+ * the number of cooling slots at most. Releases may pass different cooldowns
+ * (a crash sweep releases right away, a match after the cleanup delay), so
+ * the heap is ordered by ready time rather than by release order. Fresh slots
+ * are only taken from the spiral when the free-list is empty, which keeps
+ * arenas packed close to the origin.
+ *
+ * Slots can be allocated and released from async paste workers as well as from
+ * the main thread; the free-list is lock-free and the heap is guarded by its
+ * own monitor.
+ */
+public class SlotAllocator {
+
+    private final int cellSize;
+    private final int maxSlots;
+    private final Deque<Integer> freeSlots;
+    private final PriorityQueue<Cooldown> cooldowns; // Guarded by itself
+    private final AtomicInteger nextFreshSlot;
+    private final AtomicInteger allocatedCount;
+
+    /**
+     * @param cellSize Distance in blocks between the centers of two neighbouring slots
+     * @param maxSlots Maximum number of slots, or 0 for an unbounded spiral
+     */
+    public SlotAllocator(int cellSize, int maxSlots) {
+        this.cellSize = cellSize;
+        this.maxSlots = maxSlots;
+        this.freeSlots = new ConcurrentLinkedDeque<>();
+        this.cooldowns = new PriorityQueue<>(Comparator.comparingLong((Cooldown cooldown) -> cooldown.readyAt));
+        this.nextFreshSlot = new AtomicInteger();
+        this.allocatedCount = new AtomicInteger();
+    }
+
+    /**
+     * Restore the slots of a previous run. Must be called before the first allocation.
+     * @param freshSlots Number of slots taken from the spiral so far; every lower slot that is
+     *                   neither in use nor cooling down becomes free
+     * @param inUse Slots that stay allocated until they are released
+     * @param cooling Slots cooling down, mapped to the time in milliseconds at which they are ready
+     */
+    public void restore(int freshSlots, Collection<Integer> inUse, Map<Integer, Long> cooling) {
+        synchronized (cooldowns) {
+            for (Map.Entry<Integer, Long> entry : cooling.entrySet()) {
+                cooldowns.add(new Cooldown(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        for (int slot = 0; slot < freshSlots; slot++) {
+            if (!inUse.contains(slot) && !cooling.containsKey(slot) && (maxSlots <= 0 || slot < maxSlots)) {
+                freeSlots.add(slot);
+            }
+        }
+
+        nextFreshSlot.set(freshSlots);
+        allocatedCount.addAndGet(inUse.size());
+    }
+
+    /**
+     * Allocate a slot
+     * @param now Current time in milliseconds
+     * @return Slot index, or -1 if every slot is in use or cooling down
+     */
+    public int allocate(long now) {
+        // The heap keeps the slot that is ready first at its head, so only the head needs checking
+        synchronized (cooldowns) {
+            Cooldown head;
+            while ((head = cooldowns.peek()) != null && head.readyAt <= now) {
+                cooldowns.poll();
+                freeSlots.push(head.slot);
+            }
+        }
+
+        Integer free = freeSlots.poll();
+        if (free != null) {
+            allocatedCount.incrementAndGet();
+            return free;
+        }
+
+        while (true) {
+            int fresh = nextFreshSlot.get();
+            if (maxSlots > 0 && fresh >= maxSlots) {
+                return -1;
+            }
+            if (nextFreshSlot.compareAndSet(fresh, fresh + 1)) {
+                allocatedCount.incrementAndGet();
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * Release a slot. It becomes available again once the cooldown has passed.
+     * @param slot Slot index
+     * @param readyAt Time in milliseconds at which the slot may be reused
+     */
+    public void release(int slot, long readyAt) {
+        allocatedCount.decrementAndGet();
+        synchronized (cooldowns) {
+            cooldowns.add(new Cooldown(slot, readyAt));
+        }
+    }
+
+    /**
+     * Get the block X coordinate of a slot center
+     */
+    public int getCenterX(int slot) {
+        return spiralX(slot) * cellSize;
+    }
+
+    /**
+     * Get the block Z coordinate of a slot center
+     */
+    public int getCenterZ(int slot) {
+        return spiralZ(slot) * cellSize;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    public int getCoolingCount() {
+        synchronized (cooldowns) {
+            return cooldowns.size();
+        }
+    }
+
+    /**
+     * Grid position of a slot on the square spiral: 0 is the origin, the next
+     * 8 slots form the first ring around it, the next 16 the second ring, etc.
+     */
+    static int spiralX(int slot) {
+        return spiral(slot)[0];
+    }
+
+    static int spiralZ(int slot) {
+        return spiral(slot)[1];
+    }
+
+    private static int[] spiral(int slot) {
+        long p = slot + 1L;
+
+        // Ring k is the smallest k with (2k + 1)^2 >= p
+        long root = (long) Math.sqrt(p - 1);
+        while (root * root > p - 1) root--;
+        while ((root + 1) * (root + 1) <= p - 1) root++;
+        int k = (int) ((root + 1) / 2);
+
+        long side = 2L * k;
+        long m = (side + 1) * (side + 1);
+
+        if (p >= m - side) {
+            return new int[]{(int) (k - (m - p)), -k};
+        }
+        m -= side;
+        if (p >= m - side) {
+            return new int[]{-k, (int) (-k + (m - p))};
+        }
+        m -= side;
+        if (p >= m - side) {
+            return new int[]{(int) (-k + (m - p)), k};
+        }
+        return new int[]{k, (int) (k - (m - p - side))};
+    }
+
+    private static class Cooldown {
+        private final int slot;
+        private final long readyAt;
+
+        Cooldown(int slot, long readyAt) {
+            this.slot = slot;
+            this.readyAt = readyAt;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.pvparena.managers;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+/**
+ * Append-only on-disk journal of arena slot allocations, so the arenas left
+ * behind by a restart or crash can be found and cleared on the next start.
+ *
+ * Records are fixed-size and queued in memory; an async task appends the queue
+ * and fsyncs once per flush interval, so a crash loses at most one interval.
+ * The journal is compacted to the current slot state every time it is opened.
+ */
+public class SlotJournal {
+
+    private static final int MAGIC = 0x50564153; // "PVAS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_SIZE = 1 + 4 + 6 * 4 + 8;
+
+    private static final byte ALLOCATE = 1;
+    private static final byte REGION = 2;
+    private static final byte RELEASE = 3;
+
+    private final Plugin plugin;
+    private final File file;
+    private final Queue<ByteBuffer> pending;
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    private BukkitTask flushTask;
+
+    public SlotJournal(Plugin plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        this.pending = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Read every slot recorded by the previous run. A torn record at the end of
+     * the file (crash during a write) is ignored.
+     * @return Replayed journal, empty if there is no journal yet or it is unreadable
+     */
+    public Replay replay() {
+        Map<Integer, SlotRecord> slots = new TreeMap<>();
+        if (!file.exists()) {
+            return new Replay(0, slots);
+        }
+
+        int cellSize = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                plugin.getLogger().warning("Ignoring unknown slot journal format: " + file.getName());
+                return new Replay(0, slots);
+            }
+            cellSize = in.readInt();
+
+            byte[] record = new byte[RECORD_SIZE];
+            while (true) {
+                in.readFully(record);
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                byte type = buffer.get();
+                int slot = buffer.getInt();
+
+                if (type == ALLOCATE) {
+                    slots.put(slot, new SlotRecord(buffer.getInt(), buffer.getInt()));
+                    continue;
+                }
+
+                SlotRecord slotRecord = slots.get(slot);
+                if (slotRecord == null) {
+                    continue;
+                }
+
+                if (type == REGION) {
+                    int[] region = new int[6];
+                    for (int i = 0; i < region.length; i++) {
+                        region[i] = buffer.getInt();
+                    }
+                    slotRecord.setRegion(region);
+                } else if (type == RELEASE) {
+                    buffer.position(RECORD_SIZE - 8);
+                    slotRecord.release(buffer.getLong());
+                } else {
+                    plugin.getLogger().warning("Slot journal is corrupt, ignoring the rest of it");
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // End of the journal, possibly in the middle of a torn record
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read slot journal", e);
+        }
+
+        return new Replay(cellSize, slots);
+    }
+
+    /**
+     * Rewrite the journal with the given state and start appending to it
+     * @param cellSize Current arena grid cell size
+     * @param slots Slots to keep in the journal
+     * @param flushInterval Ticks between two flushes
+     */
+    public void open(int cellSize, Map<Integer, SlotRecord> slots, long flushInterval) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        // Write the compacted journal next to the old one, then swap it in atomically
+        File compacted = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(cellSize).flip();
+            writeFully(out, header);
+
+            for (Map.Entry<Integer, SlotRecord> entry : slots.entrySet()) {
+                SlotRecord slotRecord = entry.getValue();
+                writeFully(out, allocateRecord(entry.getKey(), slotRecord.centerX, slotRecord.centerZ));
+                if (slotRecord.region != null) {
+                    writeFully(out, regionRecord(entry.getKey(), slotRecord.region));
+                }
+                if (slotRecord.released) {
+                    writeFully(out, releaseRecord(entry.getKey(), slotRecord.readyAt));
+                }
+            }
+            out.force(true);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to compact slot journal, slot state will not be persisted", e);
+            return;
+        }
+
+        try {
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to open slot journal, slot state will not be persisted", e);
+            return;
+        }
+
+        long interval = Math.max(1, flushInterval);
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+    }
+
+    /**
+     * Record that a slot was reserved
+     */
+    public void allocate(int slot, int centerX, int centerZ) {
+        pending.add(allocateRecord(slot, centerX, centerZ));
+    }
+
+    /**
+     * Record the block region written into a slot
+     * @param region {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    public void region(int slot, int[] region) {
+        pending.add(regionRecord(slot, region));
+    }
+
+    /**
+     * Record that a slot was released
+     * @param readyAt Time in milliseconds at which the slot may be reused
+     */
+    public void release(int slot, long readyAt) {
+        pending.add(releaseRecord(slot, readyAt));
+    }
+
+    /**
+     * Append every queued record and fsync once
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            if (channel == null || pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                ByteBuffer record;
+                while ((record = pending.poll()) != null) {
+                    writeFully(channel, record);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to write slot journal", e);
+            }
+        }
+    }
+
+    /**
+     * Stop the flush task, write the remaining records and close the file
+     */
+    public void close() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+
+        flush();
+
+        synchronized (writeLock) {
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to close slot journal", e);
+            }
+            channel = null;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static ByteBuffer allocateRecord(int slot, int centerX, int centerZ) {
+        return record(ALLOCATE, slot, new int[]{centerX, centerZ, 0, 0, 0, 0}, 0);
+    }
+
+    private static ByteBuffer regionRecord(int slot, int[] region) {
+        return record(REGION, slot, region, 0);
+    }
+
+    private static ByteBuffer releaseRecord(int slot, long readyAt) {
+        return record(RELEASE, slot, new int[6], readyAt);
+    }
+
+    private static ByteBuffer record(byte type, int slot, int[] values, long time) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.put(type).putInt(slot);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        buffer.putLong(time);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * State of the journal as left by the previous run
+     */
+    public static class Replay {
+        private final int cellSize;
+        private final Map<Integer, SlotRecord> slots;
+
+        Replay(int cellSize, Map<Integer, SlotRecord> slots) {
+            this.cellSize = cellSize;
+            this.slots = slots;
+        }
+
+        /**
+         * @return Grid cell size the slots were allocated with, or 0 if unknown
+         */
+        public int getCellSize() {
+            return cellSize;
+        }
+
+        /**
+         * @return Every recorded slot, ordered by slot index
+         */
+        public Map<Integer, SlotRecord> getSlots() {
+            return Collections.unmodifiableMap(slots);
+        }
+    }
+
+    /**
+     * Last known state of one slot
+     */
+    public static class SlotRecord {
+        private final int centerX;
+        private final int centerZ;
+        private int[] region; // {minX, minY, minZ, maxX, maxY, maxZ}, null if nothing was written yet
+        private boolean released;
+        private long readyAt;
+
+        public SlotRecord(int centerX, int centerZ) {
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+        }
+
+        public int getCenterX() {
+            return centerX;
+        }
+
+        public int getCenterZ() {
+            return centerZ;
+        }
+
+        public int[] getRegion() {
+            return region;
+        }
+
+        public void setRegion(int[] region) {
+            this.region = region;
+        }
+
+        public boolean isReleased() {
+            return released;
+        }
+
+        public long getReadyAt() {
+            return readyAt;
+        }
+
+        public void release(long readyAt) {
+            this.released = true;
+            this.readyAt = readyAt;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.pvparena.managers;
+
+import com.pvparena.PVPArenaPlugin;
+import com.pvparena.models.Match;
+import com.pvparena.models.PlayerStats;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wins, losses, draws and Elo rating per player and game mode. The stats of
+ * online players are cached; they are loaded asynchronously when a player
+ * joins and dropped when they quit, so lookups never wait on the database.
+ * Match results update the cache right away and are written in batches by
+ * the {@link StatsStore}. Loading writes the queued results first, so a
+ * player who reconnects right after a match gets stats that include it;
+ * results recorded while the stats load are added on top once they arrive.
+ */
+public class StatsManager {
+
+    private final PVPArenaPlugin plugin;
+    private final StatsStore store; // null if stats are not persisted
+    private volatile int defaultRating;
+    private volatile int kFactor;
+    private final Map<UUID, Map<String, PlayerStats>> cache; // Online players, main thread only
+    private final Map<UUID, List<MissedResult>> loading; // Players whose stats are loading, main thread only
+
+    public StatsManager(PVPArenaPlugin plugin) {
+        this.plugin = plugin;
+        this.cache = new ConcurrentHashMap<>();
+        this.loading = new HashMap<>();
+        loadSettings();
+
+        StatsStore opened = null;
+        if (plugin.getConfig().getBoolean("stats.enabled", true)) {
+            opened = new StatsStore(plugin, new File(plugin.getDataFolder(), plugin.getConfig().getString("stats.file", "stats.db")),
+                    plugin.getMetrics());
+            if (!opened.open(plugin.getConfig().getLong("stats.flush-interval", 20))) {
+                opened = null;
+            }
+        }
+        this.store = opened;
+
+        // Players already online after a plugin reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            handleJoin(player);
+        }
+    }
+
+    /**
+     * Read the default rating and the rating K-factor from the config
+     */
+    public void loadSettings() {
+        ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
+        this.defaultRating = config.getDefaultRating();
+        this.kFactor = config.getKFactor();
+    }
+
+    /**
+     * Start caching the stats of a player once they are loaded. Until then the
+     * player plays with the default rating; their results are kept aside and
+     * added to the loaded stats unless the database already counted them.
+     */
+    public void handleJoin(Player player) {
+        UUID playerId = player.getUniqueId();
+        if (store == null) {
+            cache.put(playerId, new ConcurrentHashMap<>());
+            return;
+        }
+
+        loading.put(playerId, new ArrayList<>());
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            StatsStore.StoredStats stored = store.load(playerId);
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                List<MissedResult> missed = loading.remove(playerId);
+                // The player may have left while loading
+                if (stored == null || missed == null || Bukkit.getPlayer(playerId) == null) {
+                    return;
+                }
+
+                Map<String, PlayerStats> stats = new ConcurrentHashMap<>(stored.getStats());
+                for (MissedResult result : missed) {
+                    if (result.sequence > stored.getSequence()) {
+                        stats.computeIfAbsent(result.gameMode, key -> new PlayerStats(0, 0, 0, defaultRating))
+                                .record(result.result, result.ratingChange);
+                    }
+                }
+                cache.put(playerId, stats);
+            });
+        });
+    }
+
+    public void handleQuit(Player player) {
+        cache.remove(player.getUniqueId());
+        loading.remove(player.getUniqueId());
+    }
+
+    /**
+     * Get the cached stats of an online player
+     * @return Stats per game mode, empty if the player has not played yet or is offline
+     */
+    public Map<String, PlayerStats> getStats(UUID playerId) {
+        Map<String, PlayerStats> stats = cache.get(playerId);
+        return stats != null ? Collections.unmodifiableMap(stats) : Collections.emptyMap();
+    }
+
+    /**
+     * Get the rating of a player in a game mode
+     * @return Cached rating, or the default rating if the player has none yet
+     */
+    public int getRating(Player player, String gameMode) {
+        return getRating(player.getUniqueId(), gameMode);
+    }
+
+    private int getRating(UUID playerId, String gameMode) {
+        Map<String, PlayerStats> stats = cache.get(playerId);
+        PlayerStats modeStats = stats != null ? stats.get(gameMode) : null;
+        return modeStats != null ? modeStats.getRating() : defaultRating;
+    }
+
+    /**
+     * Count a finished match for every player of it and queue it for writing.
+     * Ratings move by the Elo formula using the average rating of each team;
+     * players who are no longer online count with the default rating.
+     * @param winningTeam Index of the winning team, or {@link Match#NO_WINNER}
+     */
+    public void recordMatch(Match match, int winningTeam) {
+        String gameMode = match.getGameMode();
+        double[] teamRatings = new double[match.getTeamCount()];
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (UUID playerId : match.getTeam(team)) {
+                teamRatings[team] += getRating(playerId, gameMode);
+            }
+            teamRatings[team] /= Math.max(1, match.getTeam(team).size());
+        }
+
+        PlayerStats.Result[] results = new PlayerStats.Result[match.getTeamCount()];
+        int[] ratingChanges = new int[match.getTeamCount()];
+        List<StatsStore.Participant> participants = new ArrayList<>();
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            double expected = 1 / (1 + Math.pow(10, (teamRatings[1 - team] - teamRatings[team]) / 400));
+            results[team] = winningTeam == Match.NO_WINNER ? PlayerStats.Result.DRAW
+                    : winningTeam == team ? PlayerStats.Result.WIN : PlayerStats.Result.LOSS;
+            double score = results[team] == PlayerStats.Result.WIN ? 1 : results[team] == PlayerStats.Result.DRAW ? 0.5 : 0;
+            ratingChanges[team] = (int) Math.round(kFactor * (score - expected));
+
+            for (UUID playerId : match.getTeam(team)) {
+                participants.add(new StatsStore.Participant(playerId, team, results[team], ratingChanges[team]));
+            }
+        }
+
+        long sequence = 0;
+        if (store != null) {
+            sequence = store.record(new StatsStore.MatchRecord(match.getMatchId(), gameMode, winningTeam,
+                    match.getStartTime(), System.currentTimeMillis(), defaultRating, participants));
+        }
+
+        for (int team = 0; team < match.getTeamCount(); team++) {
+            for (UUID playerId : match.getTeam(team)) {
+                Map<String, PlayerStats> stats = cache.get(playerId);
+                if (stats != null) {
+                    stats.computeIfAbsent(gameMode, key -> new PlayerStats(0, 0, 0, defaultRating))
+                            .record(results[team], ratingChanges[team]);
+                    continue;
+                }
+
+                List<MissedResult> missed = loading.get(playerId);
+                if (missed != null) {
+                    missed.add(new MissedResult(sequence, gameMode, results[team], ratingChanges[team]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the remaining match results and close the database
+     */
+    public void shutdown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Result of a player whose stats were loading when their match ended
+     */
+    private static class MissedResult {
+        private final long sequence;
+        private final String gameMode;
+        private final PlayerStats.Result result;
+        private final int ratingChange;
+
+        MissedResult(long sequence, String gameMode, PlayerStats.Result result, int ratingChange) {
+            this.sequence = sequence;
+            this.gameMode = gameMode;
+            this.result = result;
+            this.ratingChange = ratingChange;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.pvparena.managers;
+
+import com.pvparena.models.PlayerStats;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * SQLite database of match results and per game mode player stats, using the
+ * driver bundled with the server.
+ *
+ * Finished matches are queued in memory; an async task writes the queue in one
+ * transaction per flush interval, so a burst of matches costs a single commit.
+ * Stats are written as increments, which keeps them correct for players whose
+ * stored stats were never loaded. Reads flush the queue first, so a player who
+ * reconnects always sees their last match. Every queued match gets a sequence
+ * number, and reads tell up to which one their stats include.
+ */
+public class StatsStore {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS matches (" +
+                    "match_id TEXT PRIMARY KEY, game_mode TEXT NOT NULL, winning_team INTEGER NOT NULL, " +
+                    "started_at INTEGER NOT NULL, ended_at INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS match_players (" +
+                    "match_id TEXT NOT NULL, player_id TEXT NOT NULL, team INTEGER NOT NULL, " +
+                    "result TEXT NOT NULL, rating_change INTEGER NOT NULL, PRIMARY KEY (match_id, player_id))",
+            "CREATE INDEX IF NOT EXISTS match_players_player ON match_players (player_id)",
+            "CREATE TABLE IF NOT EXISTS player_stats (" +
+                    "player_id TEXT NOT NULL, game_mode TEXT NOT NULL, wins INTEGER NOT NULL, " +
+                    "losses INTEGER NOT NULL, draws INTEGER NOT NULL, rating INTEGER NOT NULL, " +
+                    "PRIMARY KEY (player_id, game_mode))"
+    };
+
+    private static final String INSERT_MATCH =
+            "INSERT OR IGNORE INTO matches (match_id, game_mode, winning_team, started_at, ended_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_PLAYER =
+            "INSERT OR IGNORE INTO match_players (match_id, player_id, team, result, rating_change) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATS =
+            "INSERT INTO player_stats (player_id, game_mode, wins, losses, draws, rating) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (player_id, game_mode) DO UPDATE SET wins = wins + excluded.wins, " +
+                    "losses = losses + excluded.losses, draws = draws + excluded.draws, rating = rating + ?";
+    private static final String SELECT_STATS =
+            "SELECT game_mode, wins, losses, draws, rating FROM player_stats WHERE player_id = ?";
+
+    private final Plugin plugin;
+    private final File file;
+    private final Queue<MatchRecord> pending;
+    private final AtomicLong lastSequence;
+    private final Object writeLock = new Object();
+    private final MetricsRegistry.Histogram flushTime;
+    private final MetricsRegistry.Histogram loadTime;
+    private final MetricsRegistry.Counter matchesWritten;
+    private Connection connection;
+    private PreparedStatement insertMatch;
+    private PreparedStatement insertPlayer;
+    private PreparedStatement updateStats;
+    private PreparedStatement selectStats;
+    private BukkitTask flushTask;
+    private long writtenSequence; // Highest sequence number flushed, guarded by writeLock
+
+    public StatsStore(Plugin plugin, File file, MetricsRegistry metrics) {
+        this.plugin = plugin;
+        this.file = file;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.lastSequence = new AtomicLong();
+        this.flushTime = metrics.histogram("stats_flush_seconds", "Time spent writing one batch of match results");
+        this.loadTime = metrics.histogram("stats_load_seconds", "Time spent loading the stats of a joining player");
+        this.matchesWritten = metrics.counter("stats_matches_written_total", "Match results written to the stats database");
+        metrics.gauge("stats_writes_pending", "Match results waiting to be written", pending::size);
+    }
+
+    /**
+     * Open the database, create missing tables and start flushing
+     * @param flushInterval Ticks between two flushes
+     * @return true if the database is ready
+     */
+    public boolean open(long flushInterval) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        synchronized (writeLock) {
+            try {
+                // Register the driver with DriverManager, plugin class loaders are not scanned
+                Class.forName("org.sqlite.JDBC");
+                connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                try (Statement statement = connection.createStatement()) {
+                    // One fsync per committed batch instead of one per statement
+                    statement.execute("PRAGMA journal_mode=WAL");
+                    statement.execute("PRAGMA synchronous=NORMAL");
+                    for (String table : SCHEMA) {
+                        statement.execute(table);
+                    }
+                }
+                connection.setAutoCommit(false);
+                insertMatch = connection.prepareStatement(INSERT_MATCH);
+                insertPlayer = connection.prepareStatement(INSERT_PLAYER);
+                updateStats = connection.prepareStatement(UPDATE_STATS);
+                selectStats = connection.prepareStatement(SELECT_STATS);
+            } catch (ClassNotFoundException | SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to open stats database, match results will not be saved", e);
+                closeConnection();
+                return false;
+            }
+        }
+
+        long interval = Math.max(1, flushInterval);
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+        return true;
+    }
+
+    /**
+     * Queue a finished match for writing
+     * @return Sequence number of the match, increasing with every queued match
+     */
+    public long record(MatchRecord record) {
+        record.sequence = lastSequence.incrementAndGet();
+        pending.add(record);
+        return record.sequence;
+    }
+
+    /**
+     * Write every queued match in one transaction
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            flushLocked();
+        }
+    }
+
+    private void flushLocked() {
+        if (connection == null || pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<MatchRecord> batch = new ArrayList<>();
+        MatchRecord record;
+        while ((record = pending.poll()) != null) {
+            batch.add(record);
+            // Also counts matches of a batch that fails, they are dropped either way
+            writtenSequence = Math.max(writtenSequence, record.sequence);
+        }
+
+        try {
+            for (MatchRecord match : batch) {
+                addToBatch(match);
+            }
+            insertMatch.executeBatch();
+            insertPlayer.executeBatch();
+            updateStats.executeBatch();
+            connection.commit();
+            matchesWritten.add(batch.size());
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write " + batch.size() + " match result(s)", e);
+            try {
+                connection.rollback();
+                insertMatch.clearBatch();
+                insertPlayer.clearBatch();
+                updateStats.clearBatch();
+            } catch (SQLException rollbackError) {
+                plugin.getLogger().log(Level.WARNING, "Failed to roll back stats database", rollbackError);
+            }
+        }
+        flushTime.recordSince(start);
+    }
+
+    private void addToBatch(MatchRecord match) throws SQLException {
+        String matchId = match.matchId.toString();
+        insertMatch.setString(1, matchId);
+        insertMatch.setString(2, match.gameMode);
+        insertMatch.setInt(3, match.winningTeam);
+        insertMatch.setLong(4, match.startedAt);
+        insertMatch.setLong(5, match.endedAt);
+        insertMatch.addBatch();
+
+        for (Participant participant : match.participants) {
+            String playerId = participant.playerId.toString();
+            insertPlayer.setString(1, matchId);
+            insertPlayer.setString(2, playerId);
+            insertPlayer.setInt(3, participant.team);
+            insertPlayer.setString(4, participant.result.name());
+            insertPlayer.setInt(5, participant.ratingChange);
+            insertPlayer.addBatch();
+
+            updateStats.setString(1, playerId);
+            updateStats.setString(2, match.gameMode);
+            updateStats.setInt(3, participant.result == PlayerStats.Result.WIN ? 1 : 0);
+            updateStats.setInt(4, participant.result == PlayerStats.Result.LOSS ? 1 : 0);
+            updateStats.setInt(5, participant.result == PlayerStats.Result.DRAW ? 1 : 0);
+            updateStats.setInt(6, match.defaultRating + participant.ratingChange);
+            updateStats.setInt(7, participant.ratingChange);
+            updateStats.addBatch();
+        }
+    }
+
+    /**
+     * Read the stored stats of a player, after writing every queued match.
+     * Blocks on the database, never call this on the main thread.
+     * @return Stats per game mode, or null if they could not be read
+     */
+    public StoredStats load(UUID playerId) {
+        synchronized (writeLock) {
+            if (connection == null) {
+                return new StoredStats(Collections.emptyMap(), writtenSequence);
+            }
+            flushLocked();
+
+            long start = System.nanoTime();
+            Map<String, PlayerStats> stats = new HashMap<>();
+            try {
+                selectStats.setString(1, playerId.toString());
+                try (ResultSet result = selectStats.executeQuery()) {
+                    while (result.next()) {
+                        stats.put(result.getString(1), new PlayerStats(result.getInt(2), result.getInt(3),
+                                result.getInt(4), result.getInt(5)));
+                    }
+                }
+                // Reads run in the write transaction, end it so the WAL can be checkpointed
+                connection.commit();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load stats of " + playerId, e);
+                return null;
+            }
+            loadTime.recordSince(start);
+            return new StoredStats(stats, writtenSequence);
+        }
+    }
+
+    /**
+     * Stop the flush task, write the remaining matches and close the database
+     */
+    public void close() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+
+        synchronized (writeLock) {
+            flushLocked();
+            closeConnection();
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close stats database", e);
+        }
+        connection = null;
+    }
+
+    /**
+     * Stats of a player as read from the database
+     */
+    public static class StoredStats {
+        private final Map<String, PlayerStats> stats;
+        private final long sequence;
+
+        StoredStats(Map<String, PlayerStats> stats, long sequence) {
+            this.stats = stats;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return Stats per game mode
+         */
+        public Map<String, PlayerStats> getStats() {
+            return stats;
+        }
+
+        /**
+         * @return Sequence number of the last match included in the stats
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
+    /**
+     * Result of one finished match
+     */
+    public static class MatchRecord {
+        private final UUID matchId;
+        private final String gameMode;
+        private final int winningTeam;
+        private final long startedAt;
+        private final long endedAt;
+        private final int defaultRating;
+        private final List<Participant> participants;
+        private long sequence;
+
+        /**
+         * @param winningTeam Index of the winning team, or {@link com.pvparena.models.Match#NO_WINNER}
+         * @param defaultRating Rating players without stored stats had in this match
+         */
+        public MatchRecord(UUID matchId, String gameMode, int winningTeam, long startedAt, long endedAt,
+                           int defaultRating, List<Participant> participants) {
+            this.matchId = matchId;
+            this.gameMode = gameMode;
+            this.winningTeam = winningTeam;
+            this.startedAt = startedAt;
+            this.endedAt = endedAt;
+            this.defaultRating = defaultRating;
+            this.participants = participants;
+        }
+    }
+
+    /**
+     * Outcome of a match for one of its players
+     */
+    public static class Participant {
+        private final UUID playerId;
+        private final int team;
+        private final PlayerStats.Result result;
+        private final int ratingChange;
+
+        public Participant(UUID playerId, int team, PlayerStats.Result result, int ratingChange) {
+            this.playerId = playerId;
+            this.team = team;
+            this.result = result;
+            this.ratingChange = ratingChange;
+        }
+    }
+}
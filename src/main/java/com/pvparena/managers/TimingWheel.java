@@ -0,0 +1,151 @@
+package com.pvparena.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel driven by a single repeating task.
+ *
+ * Timers are hashed into a fixed ring of buckets by their deadline tick, so
+ * scheduling is O(1) and each {@link #advance()} only visits the bucket of the
+ * current tick, no matter how many timers are pending. Timers further away
+ * than one revolution simply stay in their bucket until their round comes.
+ *
+ * Timers may be scheduled and cancelled from any thread; they always run on
+ * the thread calling {@link #advance()}.
+ */
+public class TimingWheel {
+
+    private static final int WHEEL_SIZE = 512; // Power of two, about 25 seconds per revolution
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Logger logger;
+    private final List<List<Timeout>> buckets;
+    private final Queue<Timeout> incoming;
+    private long currentTick;
+    private volatile int pending; // Only written by the advancing thread, read by metrics from any thread
+
+    public TimingWheel(Logger logger) {
+        this.logger = logger;
+        this.buckets = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.incoming = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Run a task after a delay. Safe to call from any thread.
+     * @param task The task to run
+     * @param delayTicks Delay in ticks, at least 1
+     * @return Handle that can cancel the timer
+     */
+    public Timeout schedule(Runnable task, long delayTicks) {
+        Timeout timeout = new Timeout(task, Math.max(1, delayTicks));
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advance the wheel by one tick and run every timer that is due
+     */
+    public void advance() {
+        currentTick++;
+
+        Timeout scheduled;
+        while ((scheduled = incoming.poll()) != null) {
+            scheduled.deadline = currentTick + scheduled.delay - 1;
+            buckets.get((int) (scheduled.deadline & MASK)).add(scheduled);
+            pending++;
+        }
+
+        List<Timeout> bucket = buckets.get((int) (currentTick & MASK));
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        // Collect the due timers first so tasks can safely schedule into this bucket
+        List<Timeout> due = null;
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.cancelled) {
+                pending--;
+            } else if (timeout.deadline <= currentTick) {
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(timeout);
+                pending--;
+            } else {
+                bucket.set(kept++, timeout);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+
+        if (due == null) {
+            return;
+        }
+
+        for (Timeout timeout : due) {
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Timer task failed", e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of timers waiting in the wheel (cancelled ones are counted until their bucket comes up)
+     * @return Pending timer count
+     */
+    public int getPendingCount() {
+        return pending + incoming.size();
+    }
+
+    /**
+     * Drop every pending timer
+     */
+    public void clear() {
+        incoming.clear();
+        for (List<Timeout> bucket : buckets) {
+            bucket.clear();
+        }
+        pending = 0;
+    }
+
+    /**
+     * Handle of a scheduled timer
+     */
+    public static class Timeout {
+        private final Runnable task;
+        private final long delay;
+        private long deadline;
+        private volatile boolean cancelled;
+
+        Timeout(Runnable task, long delay) {
+            this.task = task;
+            this.delay = delay;
+        }
+
+        /**
+         * Prevent the timer from running. It is dropped from the wheel when its bucket comes up.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -33,4 +33,17 @@ public class Arena {
     public long getCreatedTime() {
         return createdTime;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Arena that = (Arena) o;
+        return arenaId.equals(that.arenaId);
+    }
+
+    @Override
+    public int hashCode() {
+        return arenaId.hashCode();
+    }
 }
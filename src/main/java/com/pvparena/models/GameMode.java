@@ -9,13 +9,20 @@ public class GameMode {
     private final Material icon;
     private final int slot;
     private final String kitName;
+    private final int teamSize;
+    private final int maxDuration;
+    private final Match.TimeoutResolution timeoutResolution;
 
-    public GameMode(String key, String displayName, Material icon, int slot, String kitName) {
+    public GameMode(String key, String displayName, Material icon, int slot, String kitName, int teamSize,
+                    int maxDuration, Match.TimeoutResolution timeoutResolution) {
         this.key = key;
         this.displayName = displayName;
         this.icon = icon;
         this.slot = slot;
         this.kitName = kitName;
+        this.teamSize = teamSize;
+        this.maxDuration = maxDuration;
+        this.timeoutResolution = timeoutResolution;
     }
 
     public String getKey() {
@@ -37,4 +44,24 @@ public class GameMode {
     public String getKitName() {
         return kitName;
     }
+
+    /**
+     * Get the number of players per team (1 for duels)
+     * @return Team size
+     */
+    public int getTeamSize() {
+        return teamSize;
+    }
+
+    /**
+     * Get how long a match may run before the timeout resolution kicks in
+     * @return Duration in seconds, 0 = unlimited
+     */
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    public Match.TimeoutResolution getTimeoutResolution() {
+        return timeoutResolution;
+    }
 }
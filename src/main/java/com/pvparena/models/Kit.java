@@ -1,66 +1,37 @@
 package com.pvparena.models;
 
-import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+/**
+ * A kit compiled into a slot-exact inventory snapshot. The template is built
+ * once when the config is loaded and never modified afterwards; Bukkit copies
+ * every stack when it is placed in an inventory, so one template is shared by
+ * every player receiving the kit.
+ */
+public class Kit {
 
-import java.util.ArrayList;
-import java.util.List;
+    public static final int STORAGE_SIZE = 36; // Hotbar (0-8) + main inventory (9-35)
 
-public class Kit {
-    
     private final String name;
-    private Material helmet;
-    private Material chestplate;
-    private Material leggings;
-    private Material boots;
-    private final List<ItemStack> items;
+    private final ItemStack[] armor; // Boots, leggings, chestplate, helmet
+    private final ItemStack[] contents;
 
-    public Kit(String name) {
+    public Kit(String name, ItemStack[] armor, ItemStack[] contents) {
         this.name = name;
-        this.items = new ArrayList<>();
+        this.armor = armor.clone();
+        this.contents = contents.clone();
     }
 
     public String getName() {
         return name;
     }
 
-    public Material getHelmet() {
-        return helmet;
-    }
-
-    public void setHelmet(Material helmet) {
-        this.helmet = helmet;
-    }
-
-    public Material getChestplate() {
-        return chestplate;
-    }
-
-    public void setChestplate(Material chestplate) {
-        this.chestplate = chestplate;
-    }
-
-    public Material getLeggings() {
-        return leggings;
-    }
-
-    public void setLeggings(Material leggings) {
-        this.leggings = leggings;
-    }
-
-    public Material getBoots() {
-        return boots;
-    }
-
-    public void setBoots(Material boots) {
-        this.boots = boots;
-    }
-
-    public List<ItemStack> getItems() {
-        return new ArrayList<>(items);
-    }
-
-    public void addItem(ItemStack item) {
-        this.items.add(item);
+    /**
+     * Replace the inventory of a player with this kit
+     */
+    public void apply(PlayerInventory inventory) {
+        inventory.setContents(contents);
+        inventory.setArmorContents(armor);
     }
 }
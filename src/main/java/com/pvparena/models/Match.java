@@ -1,33 +1,81 @@
 package com.pvparena.models;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public class Match {
-    
+
+    /**
+     * Lifecycle of a match. A match only moves forward; any state except ENDED may end early.
+     */
     public enum MatchState {
-        WAITING,
+        WAITING,      // Arena is ready, players have not been teleported yet
         COUNTDOWN,
         ACTIVE,
-        ENDED
+        SUDDEN_DEATH, // Time ran out and the next elimination decides the match
+        ENDED;
+
+        /**
+         * Check whether a match in this state may move to the given state
+         */
+        public boolean canTransitionTo(MatchState next) {
+            switch (this) {
+                case WAITING:
+                    return next == COUNTDOWN || next == ENDED;
+                case COUNTDOWN:
+                    return next == ACTIVE || next == ENDED;
+                case ACTIVE:
+                    return next == SUDDEN_DEATH || next == ENDED;
+                case SUDDEN_DEATH:
+                    return next == ENDED;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Check whether players are fighting in this state
+         */
+        public boolean isFighting() {
+            return this == ACTIVE || this == SUDDEN_DEATH;
+        }
+    }
+
+    /**
+     * What happens when a match runs past its maximum duration
+     */
+    public enum TimeoutResolution {
+        DRAW,
+        SUDDEN_DEATH
     }
-    
+
+    // Winning team index used when a match ends without a winner
+    public static final int NO_WINNER = -1;
+
     private final UUID matchId;
-    private final UUID player1Id;
-    private final UUID player2Id;
+    private final List<List<UUID>> teams;
+    private final Set<UUID> eliminated;
     private final Arena arena;
     private final String gameMode;
     private MatchState state;
     private final long startTime;
 
-    public Match(UUID matchId, Player player1, Player player2, Arena arena, String gameMode) {
+    public Match(UUID matchId, List<UUID> team1, List<UUID> team2, Arena arena, String gameMode) {
         this.matchId = matchId;
-        this.player1Id = player1.getUniqueId();
-        this.player2Id = player2.getUniqueId();
+        this.teams = new ArrayList<>(2);
+        this.teams.add(Collections.unmodifiableList(new ArrayList<>(team1)));
+        this.teams.add(Collections.unmodifiableList(new ArrayList<>(team2)));
+        this.eliminated = new HashSet<>();
         this.arena = arena;
         this.gameMode = gameMode;
-        this.state = MatchState.COUNTDOWN;
+        this.state = MatchState.WAITING;
         this.startTime = System.currentTimeMillis();
     }
 
@@ -35,12 +83,58 @@ public class Match {
         return matchId;
     }
 
-    public Player getPlayer1() {
-        return org.bukkit.Bukkit.getPlayer(player1Id);
+    public int getTeamCount() {
+        return teams.size();
     }
 
-    public Player getPlayer2() {
-        return org.bukkit.Bukkit.getPlayer(player2Id);
+    /**
+     * Get the roster of a team
+     * @param team Team index (0 or 1)
+     * @return Unmodifiable list of member UUIDs
+     */
+    public List<UUID> getTeam(int team) {
+        return teams.get(team);
+    }
+
+    /**
+     * Get the team a player plays for
+     * @return Team index, or -1 if the player is not part of this match
+     */
+    public int getTeamOf(UUID playerId) {
+        for (int team = 0; team < teams.size(); team++) {
+            if (teams.get(team).contains(playerId)) {
+                return team;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the online members of a team
+     * @param team Team index (0 or 1)
+     * @return Online players, eliminated ones included
+     */
+    public List<Player> getOnlinePlayers(int team) {
+        List<Player> players = new ArrayList<>();
+        for (UUID playerId : teams.get(team)) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null && player.isOnline()) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Get the online members of every team
+     * @return Online players, eliminated ones included
+     */
+    public List<Player> getOnlinePlayers() {
+        List<Player> players = new ArrayList<>();
+        for (int team = 0; team < teams.size(); team++) {
+            players.addAll(getOnlinePlayers(team));
+        }
+        return players;
     }
 
     public Arena getArena() {
@@ -55,8 +149,17 @@ public class Match {
         return state;
     }
 
-    public void setState(MatchState state) {
-        this.state = state;
+    /**
+     * Move the match to another state if the current state allows it
+     * @param next The state to move to
+     * @return true if the state changed, false if the transition is not allowed
+     */
+    public boolean transitionTo(MatchState next) {
+        if (!state.canTransitionTo(next)) {
+            return false;
+        }
+        state = next;
+        return true;
     }
 
     public long getStartTime() {
@@ -64,6 +167,25 @@ public class Match {
     }
 
     public boolean containsPlayer(UUID playerId) {
-        return player1Id.equals(playerId) || player2Id.equals(playerId);
+        return getTeamOf(playerId) >= 0;
+    }
+
+    /**
+     * Mark a player as out of the match (died or left)
+     */
+    public void eliminate(UUID playerId) {
+        eliminated.add(playerId);
+    }
+
+    public boolean isAlive(UUID playerId) {
+        return containsPlayer(playerId) && !eliminated.contains(playerId);
+    }
+
+    /**
+     * Check whether every member of a team has been eliminated
+     * @param team Team index (0 or 1)
+     */
+    public boolean isTeamEliminated(int team) {
+        return eliminated.containsAll(teams.get(team));
     }
 }
@@ -0,0 +1,64 @@
+package com.pvparena.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A group of players that queues and fights as one team
+ */
+public class Party {
+
+    private final UUID partyId;
+    private final List<UUID> members; // Leader first
+
+    public Party(UUID partyId, UUID leaderId) {
+        this.partyId = partyId;
+        this.members = new ArrayList<>();
+        this.members.add(leaderId);
+    }
+
+    public UUID getPartyId() {
+        return partyId;
+    }
+
+    public UUID getLeaderId() {
+        return members.get(0);
+    }
+
+    public boolean isLeader(UUID playerId) {
+        return getLeaderId().equals(playerId);
+    }
+
+    /**
+     * Get the members of this party, leader first
+     * @return Unmodifiable member list
+     */
+    public List<UUID> getMembers() {
+        return Collections.unmodifiableList(members);
+    }
+
+    public boolean contains(UUID playerId) {
+        return members.contains(playerId);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public void addMember(UUID playerId) {
+        members.add(playerId);
+    }
+
+    /**
+     * Remove a member. When the leader leaves, the longest standing member takes over.
+     */
+    public void removeMember(UUID playerId) {
+        members.remove(playerId);
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+}
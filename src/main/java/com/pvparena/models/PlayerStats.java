@@ -0,0 +1,66 @@
+package com.pvparena.models;
+
+/**
+ * Results and rating of a player in one game mode
+ */
+public class PlayerStats {
+
+    /**
+     * Outcome of a match for one player
+     */
+    public enum Result {
+        WIN,
+        LOSS,
+        DRAW
+    }
+
+    private int wins;
+    private int losses;
+    private int draws;
+    private int rating;
+
+    public PlayerStats(int wins, int losses, int draws, int rating) {
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.rating = rating;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getMatches() {
+        return wins + losses + draws;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Count a finished match
+     * @param ratingChange Rating points won (positive) or lost (negative)
+     */
+    public void record(Result result, int ratingChange) {
+        switch (result) {
+            case WIN:
+                wins++;
+                break;
+            case LOSS:
+                losses++;
+                break;
+            default:
+                draws++;
+        }
+        rating += ratingChange;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pvparena.models;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A solo player or a party waiting in a matchmaking queue. Only UUIDs are kept
+ * so entries never hold on to stale Player objects across reconnects.
+ */
+public class QueueEntry {
+
+    private final List<UUID> members; // Leader first
+    private final String gameMode;
+    private final int rating;
+    private final long joinTime;
+
+    public QueueEntry(List<UUID> members, String gameMode, int rating, long joinTime) {
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+        this.gameMode = gameMode;
+        this.rating = rating;
+        this.joinTime = joinTime;
+    }
+
+    /**
+     * Get the UUID of the player who queued (the party leader)
+     */
+    public UUID getPlayerId() {
+        return members.get(0);
+    }
+
+    /**
+     * Get the player who queued (the party leader)
+     * @return Online player, or null if the player is offline
+     */
+    public Player getPlayer() {
+        return Bukkit.getPlayer(getPlayerId());
+    }
+
+    /**
+     * Get every queued player, leader first
+     * @return Unmodifiable member list
+     */
+    public List<UUID> getMembers() {
+        return members;
+    }
+
+    /**
+     * Get the number of players in this entry
+     */
+    public int getSize() {
+        return members.size();
+    }
+
+    /**
+     * Check whether every member is still online
+     */
+    public boolean isOnline() {
+        for (UUID memberId : members) {
+            if (Bukkit.getPlayer(memberId) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getGameMode() {
+        return gameMode;
+    }
+
+    /**
+     * Get the rating of this entry (the average member rating for parties)
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    public long getJoinTime() {
+        return joinTime;
+    }
+
+    /**
+     * Get how long this entry has been waiting
+     * @param now Current time in milliseconds
+     * @return Wait time in milliseconds
+     */
+    public long getWaitTime(long now) {
+        return Math.max(0, now - joinTime);
+    }
+}